@@ -0,0 +1,349 @@
+package com.gdut;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 编译后的答案键：每道题的标准答案只计算一次，
+ * 以 (分子, 分母) long 数组的形式持久化到题目文件旁的二进制文件，按内容哈希校验。
+ * 同时保存每行的题号，批改时可按题号而非行位置匹配答案。
+ */
+public class AnswerKey {
+    static final int SKIP = 0;     // 该行不计分
+    static final int CORRECT = 1;  // 正确
+    static final int WRONG = 2;    // 错误
+    static final int MISSING = 3;  // 按题号批改时缺少该题答案
+    static final int NO_NUMBER = -1;  // 行首没有题号
+
+    private static final long MAGIC = 0x414E534B45590002L;  // "ANSKEY" + 版本号
+    private static final int HASH_BYTES = 32;               // SHA-256 长度
+    private static final int HEADER_BYTES = 8 + HASH_BYTES + 8;  // magic + 哈希 + 题数
+    private static final long MARK_SKIP = 0;   // 分母为0时：题目行格式错误
+    private static final long MARK_ERROR = 1;  // 分母为0时：表达式无法解析或计算
+
+    private final LongBuffer entries;  // 第 i 题占 2i、2i+1 两个位置：分子、分母
+    private final IntBuffer numbers;   // 每行题号，NO_NUMBER 表示没有
+    private final int count;           // 题目行数
+
+    /**
+     * 内嵌静态类：按题号批改的结果。
+     */
+    public static class Join {
+        final byte[] outcomes;  // 每个题目行的结果：SKIP/CORRECT/WRONG/MISSING
+        int[] unexpected = new int[8];  // 题目中不存在或重复出现的答案题号，按答案文件顺序
+        int unexpectedCount;
+
+        /**
+         * 构造函数：创建结果。
+         * @param count 题目行数
+         */
+        Join(int count) {
+            this.outcomes = new byte[count];
+        }
+
+        /**
+         * 私有方法：记录一个多余的答案题号。
+         * @param number 题号
+         */
+        private void addUnexpected(int number) {
+            if (unexpectedCount == unexpected.length) unexpected = Arrays.copyOf(unexpected, unexpectedCount * 2);
+            unexpected[unexpectedCount++] = number;
+        }
+    }
+
+    /**
+     * 私有构造函数：包装答案数组。
+     * @param entries (分子, 分母) 数组
+     * @param numbers 题号数组
+     * @param count 题目行数
+     */
+    private AnswerKey(LongBuffer entries, IntBuffer numbers, int count) {
+        this.entries = entries;
+        this.numbers = numbers;
+        this.count = count;
+    }
+
+    /**
+     * 加载题目文件的答案键：旁路文件哈希匹配则直接映射，否则编译并写回旁路文件。
+     * @param exerFile 题目文件
+     * @return 答案键
+     * @throws IOException 读取题目文件失败
+     */
+    public static AnswerKey load(Path exerFile) throws IOException {
+        byte[] content = Files.readAllBytes(exerFile);
+        byte[] hash = sha256(content);
+        Path sidecar = sidecarPath(exerFile);
+        AnswerKey cached = open(sidecar, hash);
+        if (cached != null) return cached;
+
+        AnswerKey key = compile(new String(content, StandardCharsets.UTF_8).lines().collect(Collectors.toList()));
+        try {
+            key.save(sidecar, hash);
+        } catch (IOException e) {
+            // 目录不可写时仅本次使用内存中的答案键
+        }
+        return key;
+    }
+
+    /**
+     * 编译题目行：解析并计算每道题的答案。
+     * @param exerLines 题目行
+     * @return 答案键
+     */
+    public static AnswerKey compile(List<String> exerLines) {
+        long[] values = new long[exerLines.size() * 2];
+        int[] nums = new int[exerLines.size()];
+        for (int i = 0; i < exerLines.size(); i++) {
+            String exerLine = exerLines.get(i).trim();
+
+            // 解析题目：提取 "expr"
+            String[] exerParts = exerLine.split("\\.", 2);
+            if (exerParts.length < 2) {
+                values[2 * i] = MARK_SKIP;
+                nums[i] = NO_NUMBER;
+                continue;
+            }
+            nums[i] = parseNumber(exerParts[0]);
+            String exprStr = exerParts[1].trim().split("=", 2)[0].trim();
+            try {
+                Expr expr = new ArithmeticGenerator.Parser(exprStr).parse();  // 解析字符串到树
+                Fraction computed = expr.eval();  // 计算
+                values[2 * i] = computed.getNumerator();
+                values[2 * i + 1] = computed.getDenominator();
+            } catch (Exception e) {
+                values[2 * i] = MARK_ERROR;  // 解析错误计错
+            }
+        }
+        return new AnswerKey(LongBuffer.wrap(values), IntBuffer.wrap(nums), exerLines.size());
+    }
+
+    /**
+     * 批改一行答案。答案为空或无法解析时计错，不抛出异常。
+     * @param i 行号（从0开始）
+     * @param ansLine 答案行
+     * @return SKIP、CORRECT 或 WRONG
+     */
+    public int check(int i, String ansLine) {
+        long num = entries.get(2 * i);
+        long den = entries.get(2 * i + 1);
+        if (den == 0 && num == MARK_SKIP) return SKIP;
+
+        // 解析答案：提取 "ans"
+        String[] ansParts = ansLine.trim().split("\\.", 2);
+        if (ansParts.length < 2) return SKIP;
+        Fraction expected;  // 预期答案
+        try {
+            expected = Fraction.parse(ansParts[1].trim());
+        } catch (Exception e) {
+            return WRONG;  // 空答案或格式错误计错
+        }
+        if (den == 0) return WRONG;
+        return expected.getNumerator() == num && expected.getDenominator() == den ? CORRECT : WRONG;
+    }
+
+    /**
+     * 按行位置批改整份答案。
+     * @param ansLines 答案行
+     * @return 每行批改结果，长度为题目行数与答案行数的较小者
+     */
+    public byte[] grade(List<String> ansLines) {
+        byte[] outcomes = new byte[Math.min(count, ansLines.size())];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = (byte) check(i, ansLines.get(i));
+        }
+        return outcomes;
+    }
+
+    /**
+     * 按题号批改整份答案：答案行按行首题号与题目行匹配，与行的顺序无关。
+     * 两边题号均严格递增时做一次有序归并，否则用原始类型哈希表按题号查找；均为线性时间。
+     * 题目中没有答案的题记为 MISSING，题目中不存在或重复出现的答案题号记为多余；
+     * 没有题号的答案行不计分。
+     * @param ansLines 答案行
+     * @return 批改结果
+     */
+    public Join join(List<String> ansLines) {
+        Join join = new Join(count);
+        int[] ansNumbers = new int[ansLines.size()];
+        boolean ascending = true;
+        int prev = -1;
+        for (int j = 0; j < ansNumbers.length; j++) {
+            int dot = ansLines.get(j).indexOf('.');
+            ansNumbers[j] = dot < 0 ? NO_NUMBER : parseNumber(ansLines.get(j).substring(0, dot));
+            if (ansNumbers[j] == NO_NUMBER) continue;
+            if (ansNumbers[j] <= prev) ascending = false;
+            prev = ansNumbers[j];
+        }
+        for (int i = 0; i < count; i++) {
+            join.outcomes[i] = (byte) (numbers.get(i) == NO_NUMBER ? SKIP : MISSING);
+        }
+
+        if (ascending && numbersAscending()) {  // 有序归并
+            int i = 0;
+            int j = 0;
+            while (j < ansNumbers.length) {
+                if (ansNumbers[j] == NO_NUMBER) {
+                    j++;
+                } else if (i < count && numbers.get(i) == NO_NUMBER) {
+                    i++;
+                } else if (i < count && numbers.get(i) < ansNumbers[j]) {
+                    i++;  // 缺少答案
+                } else if (i < count && numbers.get(i) == ansNumbers[j]) {
+                    join.outcomes[i] = (byte) check(i, ansLines.get(j));
+                    i++;
+                    j++;
+                } else {
+                    join.addUnexpected(ansNumbers[j++]);
+                }
+            }
+        } else {  // 哈希连接：题号 -> 行号，题号重复时只保留第一行
+            IntIntMap rows = new IntIntMap(count);
+            for (int i = 0; i < count; i++) {
+                if (numbers.get(i) != NO_NUMBER) rows.putIfAbsent(numbers.get(i), i);
+            }
+            for (int j = 0; j < ansNumbers.length; j++) {
+                if (ansNumbers[j] == NO_NUMBER) continue;
+                int i = rows.get(ansNumbers[j], -1);
+                if (i < 0 || join.outcomes[i] != MISSING) {
+                    join.addUnexpected(ansNumbers[j]);
+                } else {
+                    join.outcomes[i] = (byte) check(i, ansLines.get(j));
+                }
+            }
+        }
+        return join;
+    }
+
+    /**
+     * 获取第 i 个题目行的题号。
+     * @param i 行号（从0开始）
+     * @return 题号，没有题号时为 NO_NUMBER
+     */
+    public int number(int i) {
+        return numbers.get(i);
+    }
+
+    /**
+     * 获取题目行数。
+     * @return 行数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 旁路文件路径：题目文件名加 ".key"。
+     * @param exerFile 题目文件
+     * @return 旁路文件路径
+     */
+    static Path sidecarPath(Path exerFile) {
+        return exerFile.resolveSibling(exerFile.getFileName() + ".key");
+    }
+
+    /**
+     * 私有方法：题目行的题号是否严格递增（忽略没有题号的行）。
+     * @return true 如果严格递增
+     */
+    private boolean numbersAscending() {
+        int prev = -1;
+        for (int i = 0; i < count; i++) {
+            int n = numbers.get(i);
+            if (n == NO_NUMBER) continue;
+            if (n <= prev) return false;
+            prev = n;
+        }
+        return true;
+    }
+
+    /**
+     * 静态方法：解析行首题号，只接受不超过9位的十进制数字（忽略两侧空白）。
+     * @param s 题号部分
+     * @return 题号，格式不符时为 NO_NUMBER
+     */
+    static int parseNumber(String s) {
+        s = s.trim();
+        if (s.isEmpty() || s.length() > 9) return NO_NUMBER;
+        int n = 0;
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') return NO_NUMBER;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    /**
+     * 私有方法：映射旁路文件，魔数、哈希或长度不符时返回 null。
+     * @param sidecar 旁路文件
+     * @param hash 题目文件哈希
+     * @return 答案键或 null
+     */
+    private static AnswerKey open(Path sidecar, byte[] hash) {
+        if (!Files.isRegularFile(sidecar)) return null;
+        try (FileChannel ch = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) return null;
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getLong() != MAGIC) return null;
+            byte[] stored = new byte[HASH_BYTES];
+            buf.get(stored);
+            if (!Arrays.equals(stored, hash)) return null;
+            long count = buf.getLong();
+            if (count < 0 || size != HEADER_BYTES + count * 20) return null;
+            LongBuffer entries = buf.slice().limit((int) count * 16).asLongBuffer();
+            IntBuffer numbers = buf.position(HEADER_BYTES + (int) count * 16).slice().asIntBuffer();
+            return new AnswerKey(entries, numbers, (int) count);
+        } catch (IOException e) {
+            return null;  // 损坏或不可读时重新编译
+        }
+    }
+
+    /**
+     * 私有方法：写入旁路文件（先写临时文件再替换，避免读到半成品）。
+     * @param sidecar 旁路文件
+     * @param hash 题目文件哈希
+     * @throws IOException 写入失败
+     */
+    private void save(Path sidecar, byte[] hash) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + count * 20);
+        buf.putLong(MAGIC);
+        buf.put(hash);
+        buf.putLong(count);
+        for (int i = 0; i < count * 2; i++) {
+            buf.putLong(entries.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buf.putInt(numbers.get(i));
+        }
+        buf.flip();
+        Path tmp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+        Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 私有方法：计算 SHA-256。
+     * @param content 内容
+     * @return 哈希值
+     */
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("缺少 SHA-256", e);
+        }
+    }
+}
\ No newline at end of file
@@ -1,320 +1,804 @@
-package com.gdut;
-
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.*;
-
-/**
- * 主类：处理命令行参数、生成题目、批改答案。
- */
-public class ArithmeticGenerator {
-    private static final String[] OPS = {"+", "-", "*", "/"};  // 运算符数组
-
-    /**
-     * 主方法：解析参数，调用生成或批改。
-     * @param args 命令行参数
-     */
-    public static void main(String[] args) {
-        int numProblems = 10;  // 默认题目数
-        int range = -1;        // 默认范围
-        String exerciseFile = null;
-        String answerFile = null;
-
-        for (int i = 0; i < args.length; i++) {
-            if (args[i].equals("-n") && i + 1 < args.length) {
-                numProblems = Integer.parseInt(args[++i]);
-            } else if (args[i].equals("-r") && i + 1 < args.length) {
-                range = Integer.parseInt(args[++i]);
-            } else if (args[i].equals("-e") && i + 1 < args.length) {
-                exerciseFile = args[++i];
-            } else if (args[i].equals("-a") && i + 1 < args.length) {
-                answerFile = args[++i];
-            }
-        }
-
-        if (exerciseFile != null && answerFile != null) {
-            grade(exerciseFile, answerFile);  // 批改模式
-            return;
-        }
-
-        if (range == -1) {
-            System.err.println("错误：生成模式需要 -r 参数。");
-            System.err.println("用法：");
-            System.err.println("  java ArithmeticGenerator -n <num> -r <range>");
-            System.err.println("  java ArithmeticGenerator -e <exercises.txt> -a <answers.txt>");
-            return;
-        }
-
-        generate(numProblems, range);  // 生成模式
-    }
-
-    /**
-     * 生成题目：随机树、唯一性检查、输出文件。
-     * @param n 题目数
-     * @param r 范围
-     */
-    private static void generate(int n, int r) {
-        List<Fraction> leaves = new ArrayList<>();  // 预生成所有可能叶子值
-        // 自然数：0 到 r-1
-        for (int i = 0; i < r; i++) {
-            leaves.add(new Fraction(i, 1));
-        }
-        // 真分数：分母2~r，分子1~den-1
-        for (int den = 2; den <= r; den++) {
-            for (int num = 1; num < den; num++) {
-                leaves.add(new Fraction(num, den));
-            }
-        }
-        // 混合数：整数1~r-1 + 真分数
-        for (int whole = 1; whole < r; whole++) {
-            for (int den = 2; den <= r; den++) {
-                for (int num = 1; num < den; num++) {
-                    leaves.add(new Fraction(whole * den + num, den));
-                }
-            }
-        }
-
-        Set<String> uniqueCanonicals = new HashSet<>();  // 唯一规范Set
-        List<Expr> problems = new ArrayList<>();  // 题目列表
-        Random rand = new Random();  // 随机数生成器
-        int attempts = 0;
-        final int MAX_ATTEMPTS = 1000000;  // 最大尝试次数
-
-        while (problems.size() < n && attempts < MAX_ATTEMPTS) {
-            attempts++;
-            Expr expr = generateExpr(3, leaves, rand);  // 生成树（最多3运算符）
-            if (expr.isValid()) {  // 验证有效
-                String can = expr.getCanonical();
-                if (!uniqueCanonicals.contains(can)) {  // 唯一检查
-                    uniqueCanonicals.add(can);
-                    problems.add(expr);
-                }
-            }
-        }
-
-        if (problems.size() < n) {
-            System.err.println("警告：仅生成 " + problems.size() + " 个唯一题目（目标: " + n + "）。");
-        }
-
-        // 输出到文件
-        try (PrintWriter exerWriter = new PrintWriter(new FileWriter("Exercises.txt"));
-             PrintWriter ansWriter = new PrintWriter(new FileWriter("Answers.txt"))) {
-            for (int i = 0; i < problems.size(); i++) {
-                Expr e = problems.get(i);
-                exerWriter.println((i + 1) + ". " + e.toInfix() + " =");  // 题目格式
-                ansWriter.println((i + 1) + ". " + e.eval().toString());   // 答案格式
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        System.out.println("生成 " + problems.size() + " 个题目到 Exercises.txt 和 Answers.txt");
-    }
-
-    /**
-     * 递归生成表达式树：rem 表示剩余运算符槽。
-     * @param rem 剩余运算符数
-     * @param leaves 叶子值列表
-     * @param rand 随机生成器
-     * @return 表达式树
-     */
-    private static Expr generateExpr(int rem, List<Fraction> leaves, Random rand) {
-        if (rem == 0 || rand.nextDouble() < 0.4) {  // 40% 概率或 rem=0 为叶子
-            return new Leaf(leaves.get(rand.nextInt(leaves.size())));
-        }
-        String op = OPS[rand.nextInt(OPS.length)];  // 随机运算符
-        int leftRem = rand.nextInt(rem);  // 随机分配左剩余
-        int rightRem = rem - 1 - leftRem;  // 右剩余
-        Expr left = generateExpr(leftRem, leaves, rand);
-        Expr right = generateExpr(rightRem, leaves, rand);
-        return new Binary(op, left, right);
-    }
-
-    /**
-     * 批改功能：解析文件、计算比对、输出 Grade.txt。
-     * @param exerFile 题目文件
-     * @param ansFile 答案文件
-     */
-    static void grade(String exerFile, String ansFile) {
-        try {
-            List<String> exerLines = Files.readAllLines(Paths.get(exerFile));  // 读题目行
-            List<String> ansLines = Files.readAllLines(Paths.get(ansFile));    // 读答案行
-            List<Integer> correct = new ArrayList<>();  // 正确编号
-            List<Integer> wrong = new ArrayList<>();    // 错误编号
-
-            for (int i = 0; i < Math.min(exerLines.size(), ansLines.size()); i++) {
-                String exerLine = exerLines.get(i).trim();
-                String ansLine = ansLines.get(i).trim();
-
-                // 解析题目：提取 "expr"
-                String[] exerParts = exerLine.split("\\.", 2);
-                if (exerParts.length < 2) continue;
-                String[] exprSplit = exerParts[1].trim().split("=", 2);
-                if (exprSplit.length < 1) continue;
-                String exprStr = exprSplit[0].trim();
-
-                // 解析答案：提取 "ans"
-                String[] ansParts = ansLine.split("\\.", 2);
-                if (ansParts.length < 2) continue;
-                String ansStr = ansParts[1].trim();
-
-                Fraction expected = Fraction.parse(ansStr);  // 预期答案
-                try {
-                    Parser parser = new Parser(exprStr);  // 解析字符串到树
-                    Expr expr = parser.parse();
-                    Fraction computed = expr.eval();  // 计算
-                    if (computed.equals(expected)) {
-                        correct.add(i + 1);
-                    } else {
-                        wrong.add(i + 1);
-                    }
-                } catch (Exception e) {
-                    wrong.add(i + 1);  // 解析错误计错
-                }
-            }
-
-            // 输出 Grade.txt
-            try (PrintWriter gradeWriter = new PrintWriter(new FileWriter("Grade.txt"))) {
-                String correctStr = correct.isEmpty() ? "" : correct.stream().map(String::valueOf).reduce((a, b) -> a + ", " + b).get();
-                String wrongStr = wrong.isEmpty() ? "" : wrong.stream().map(String::valueOf).reduce((a, b) -> a + ", " + b).get();
-                gradeWriter.println("Correct: " + correct.size() + " (" + correctStr + ")");
-                gradeWriter.println("Wrong: " + wrong.size() + " (" + wrongStr + ")");
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * 内嵌静态类：递归下降解析器，将中缀字符串解析为 Expr 树。
-     */
-    static class Parser {
-        private String s;  // 输入字符串
-        private int pos;   // 当前位置
-
-        /**
-         * 构造函数：初始化解析器。
-         * @param input 输入字符串
-         */
-        public Parser(String input) {
-            this.s = input;
-            this.pos = 0;
-        }
-
-        /**
-         * 入口：解析全表达式。
-         * @return Expr 树
-         */
-        public Expr parse() {
-            return parseAdd();
-        }
-
-        /**
-         * 解析加减层：Mul { (+|-) Mul }（左结合）。
-         * @return 加减表达式
-         */
-        private Expr parseAdd() {
-            Expr e = parseMul();
-            while (true) {
-                String op = peekNextOp();
-                if (op == null || (!op.equals("+") && !op.equals("-"))) break;
-                consumeOp(op);
-                Expr right = parseMul();
-                e = new Binary(op, e, right);
-            }
-            return e;
-        }
-
-        /**
-         * 解析乘除层：Atom { (*|/) Mul }（左结合）。
-         * @return 乘除表达式
-         */
-        private Expr parseMul() {
-            Expr e = parseAtom();
-            while (true) {
-                String op = peekNextOp();
-                if (op == null || (!op.equals("*") && !op.equals("/"))) break;
-                consumeOp(op);
-                Expr right = parseMul();
-                e = new Binary(op, e, right);
-            }
-            return e;
-        }
-
-        /**
-         * 解析原子：数字或 (expr)。
-         * @return 原子表达式
-         */
-        private Expr parseAtom() {
-            skipSpaces();
-            if (pos >= s.length()) throw new RuntimeException("意外结束");
-            if (s.charAt(pos) == '(') {
-                pos++;  // 消费 (
-                Expr e = parseAdd();
-                skipSpaces();
-                if (pos < s.length() && s.charAt(pos) == ')') {
-                    pos++;  // 消费 )
-                } else {
-                    throw new RuntimeException("缺少 )");
-                }
-                return e;
-            } else {
-                String numStr = parseNumberStr();
-                return new Leaf(Fraction.parse(numStr));
-            }
-        }
-
-        /**
-         * 窥视下一个运算符（不消费）。
-         * @return op 或 null
-         */
-        private String peekNextOp() {
-            skipSpaces();
-            if (pos >= s.length()) return null;
-            char ch = s.charAt(pos);
-            if (ch == '+' || ch == '-' || ch == '*' || ch == '/') {
-                return String.valueOf(ch);
-            }
-            return null;
-        }
-
-        /**
-         * 消费运算符。
-         * @param op 预期 op
-         */
-        private void consumeOp(String op) {
-            skipSpaces();
-            if (pos < s.length() && s.charAt(pos) == op.charAt(0)) {
-                pos++;
-            } else {
-                throw new RuntimeException("预期运算符: " + op);
-            }
-        }
-
-        /**
-         * 跳过空格。
-         */
-        private void skipSpaces() {
-            while (pos < s.length() && s.charAt(pos) == ' ') pos++;
-        }
-
-        /**
-         * 解析数字字符串（包括混合数）。
-         * @return 数字字符串
-         */
-        private String parseNumberStr() {
-            skipSpaces();
-            StringBuilder sb = new StringBuilder();
-            while (pos < s.length()) {
-                char ch = s.charAt(pos);
-                if (ch == ' ' || ch == ')' || (ch == '+' || ch == '-' || ch == '*' || ch == '/')) {
-                    break;
-                }
-                sb.append(ch);
-                pos++;
-            }
-            if (sb.length() == 0) throw new RuntimeException("预期数字");
-            return sb.toString();
-        }
-    }
+package com.gdut;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 主类：处理命令行参数、生成题目、批改答案。
+ */
+public class ArithmeticGenerator {
+    static final String[] OPS = {"+", "-", "*", "/"};  // 运算符数组
+    static final int DEFAULT_MAX_OPS = 3;  // 默认每题最多运算符数
+    static final int CHECKPOINT_INTERVAL = 100000;  // 每生成多少题写出一次并保存检查点
+    static final long MIN_ATTEMPTS = 1000000;       // 最大尝试次数的下限
+    static final int ATTEMPTS_PER_PROBLEM = 100;     // 每道目标题允许的尝试次数
+    static final int EXACT_RETRIES = 100;            // 指定运算符数时同一个数的最多重试次数
+
+    /**
+     * 运算符在 OPS 中的下标。
+     * @param op 运算符字符
+     * @return 下标，非运算符为 -1
+     */
+    static int opIndex(char op) {
+        for (int k = 0; k < OPS.length; k++) {
+            if (OPS[k].charAt(0) == op) return k;
+        }
+        return -1;
+    }
+
+    /**
+     * 主方法：解析参数，调用生成或批改。
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        int numProblems = 10;  // 默认题目数
+        int range = -1;        // 默认范围
+        String exerciseFile = null;
+        String answerFile = null;
+        String batchTarget = null;  // 批量批改目录或通配符
+        String watchDir = null;     // 监视批改目录
+        Fraction maxAnswer = null;  // 答案上界（不含）
+        long maxDen = -1;           // 答案分母上界
+        int minOps = 0;                // 每题最少运算符数（0 表示只设上限）
+        int maxOps = DEFAULT_MAX_OPS;  // 每题最多运算符数
+        boolean resume = false;     // 从检查点继续生成
+        boolean byNumber = false;   // 批改时按题号匹配答案
+        boolean stats = false;      // 输出题库统计
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-n") && i + 1 < args.length) {
+                numProblems = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-r") && i + 1 < args.length) {
+                range = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-e") && i + 1 < args.length) {
+                exerciseFile = args[++i];
+            } else if (args[i].equals("-a") && i + 1 < args.length) {
+                answerFile = args[++i];
+            } else if (args[i].equals("-b") && i + 1 < args.length) {
+                batchTarget = args[++i];
+            } else if (args[i].equals("-w") && i + 1 < args.length) {
+                watchDir = args[++i];
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                String ops = args[++i];
+                int dash = ops.indexOf('-', 1);  // "<min>-<max>"；首位的 '-' 是负号
+                if (dash > 0) {
+                    minOps = Integer.parseInt(ops.substring(0, dash));
+                    maxOps = Integer.parseInt(ops.substring(dash + 1));
+                } else {
+                    maxOps = Integer.parseInt(ops);
+                }
+            } else if (args[i].equals("--max-answer") && i + 1 < args.length) {
+                maxAnswer = Fraction.parse(args[++i]);
+            } else if (args[i].equals("--max-den") && i + 1 < args.length) {
+                maxDen = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--resume")) {
+                resume = true;
+            } else if (args[i].equals("--by-number")) {
+                byNumber = true;
+            } else if (args[i].equals("--stats")) {
+                stats = true;
+            }
+        }
+
+        if (exerciseFile != null && batchTarget != null) {
+            try {
+                BatchGrader.run(exerciseFile, batchTarget, Paths.get(BatchGrader.REPORT_DIR));  // 批量批改模式
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (exerciseFile != null && watchDir != null) {
+            try {
+                WatchGrader.run(exerciseFile, watchDir, Paths.get(BatchGrader.REPORT_DIR));  // 监视批改模式
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (exerciseFile != null && stats) {
+            writeStats(Paths.get(exerciseFile), answerFile == null ? null : Paths.get(answerFile));  // 统计模式
+            return;
+        }
+
+        if (exerciseFile != null && answerFile != null) {
+            grade(exerciseFile, answerFile, byNumber);  // 批改模式
+            return;
+        }
+
+        if (resume) {
+            resume(Paths.get(""), stats);  // 从检查点继续生成，参数取自检查点
+            return;
+        }
+
+        if (minOps < 0 || maxOps < minOps) {
+            System.err.println("错误：-o 参数应为 <maxOps> 或 <minOps>-<maxOps>，且 0 <= minOps <= maxOps。");
+            return;
+        }
+
+        if (range == -1) {
+            System.err.println("错误：生成模式需要 -r 参数。");
+            System.err.println("用法：");
+            System.err.println("  java ArithmeticGenerator -n <num> -r <range> [-o <maxOps>|<minOps>-<maxOps>] [--stats]");
+            System.err.println("  java ArithmeticGenerator --resume [--stats]");
+            System.err.println("  java ArithmeticGenerator -n <num> -r <range> [-o <maxOps>|<minOps>-<maxOps>] [--max-answer <value>] [--max-den <den>]");
+            System.err.println("  java ArithmeticGenerator -e <exercises.txt> -a <answers.txt> [--by-number]");
+            System.err.println("  java ArithmeticGenerator -e <exercises.txt> [-a <answers.txt>] --stats");
+            System.err.println("  java ArithmeticGenerator -e <exercises.txt> -b <answers-dir|glob>");
+            System.err.println("  java ArithmeticGenerator -e <exercises.txt> -w <answers-dir>");
+            return;
+        }
+
+        if (maxAnswer != null || maxDen != -1) {
+            generateIndexed(numProblems, range, minOps, maxOps, answerConstraint(maxAnswer, maxDen));  // 按答案约束生成
+            if (stats) writeStats(Paths.get("Exercises.txt"), Paths.get("Answers.txt"));
+            return;
+        }
+
+        generate(numProblems, range, minOps, maxOps, stats);  // 生成模式
+    }
+
+    /**
+     * 答案约束：小于上限且分母不超过限制。比较时分子分母交叉相乘溢出的值视为不满足。
+     * @param upper 答案上限（不含），null 表示不限
+     * @param denLimit 分母上限，-1 表示不限
+     * @return 约束
+     */
+    static Predicate<Fraction> answerConstraint(Fraction upper, long denLimit) {
+        return v -> {
+            try {
+                return (upper == null || v.compareTo(upper) < 0) && (denLimit == -1 || v.getDenominator() <= denLimit);
+            } catch (ArithmeticException e) {
+                return false;  // 超出 long 范围
+            }
+        };
+    }
+
+    /**
+     * 生成题目（默认最多3运算符）。
+     * @param n 题目数
+     * @param r 范围
+     */
+    private static void generate(int n, int r) {
+        generate(n, r, DEFAULT_MAX_OPS);
+    }
+
+    /**
+     * 生成题目：随机树、唯一性检查、输出文件。
+     * @param n 题目数
+     * @param r 范围
+     * @param maxOps 每题最多运算符数
+     */
+    private static void generate(int n, int r, int maxOps) {
+        generate(n, r, 0, maxOps, false);
+    }
+
+    /**
+     * 生成题目，withStats 为 true 时同时统计生成中的题目并输出 Stats.txt。
+     * @param n 题目数
+     * @param r 范围
+     * @param minOps 每题最少运算符数，0 表示只设上限
+     * @param maxOps 每题最多运算符数
+     * @param withStats 是否输出统计
+     */
+    private static void generate(int n, int r, int minOps, int maxOps, boolean withStats) {
+        try {
+            generate(new Checkpoint(n, r, minOps, maxOps, new Random()), Paths.get(""), CHECKPOINT_INTERVAL,
+                    withStats ? new BankStats() : null);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 从目录中的检查点继续生成。
+     * 检查点不保存统计，withStats 为 true 时在完成后流式统计输出文件。
+     * @param dir 输出目录
+     * @param withStats 是否输出统计
+     */
+    static void resume(Path dir, boolean withStats) {
+        Path file = dir.resolve(Checkpoint.FILE);
+        if (!Files.exists(file)) {
+            System.err.println("错误：没有可恢复的检查点 " + file + "。");
+            return;
+        }
+        try {
+            Checkpoint state = Checkpoint.load(file);
+            System.out.println("从检查点继续：已生成 " + state.count + " 个题目（目标: " + state.n + "）");
+            generate(state, dir, CHECKPOINT_INTERVAL);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (withStats) writeStats(dir.resolve("Exercises.txt"), dir.resolve("Answers.txt"));
+    }
+
+    /**
+     * 统计题目文件和答案文件（答案文件可为 null），输出 Stats.txt。
+     * @param exerFile 题目文件
+     * @param ansFile 答案文件
+     */
+    static void writeStats(Path exerFile, Path ansFile) {
+        try {
+            BankStats.ofFiles(exerFile, ansFile).write(Paths.get(BankStats.REPORT_FILE));
+            System.out.println("统计结果输出到 " + BankStats.REPORT_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 分块生成题目：每接受 interval 道题追加写出一次并保存检查点，
+     * 内存中只保留去重索引和当前块。从检查点恢复时先截掉检查点之后写出的部分，
+     * 随机数状态、去重索引和尝试次数均与中断前一致，因此输出与不中断运行逐字节相同。
+     * @param state 生成状态（新任务或已加载的检查点）
+     * @param dir 输出目录
+     * @param interval 检查点间隔（题数）
+     * @return true 如果生成完成；提前停止时返回 false 并保留检查点
+     * @throws IOException 读写失败
+     */
+    static boolean generate(Checkpoint state, Path dir, int interval) throws IOException {
+        return generate(state, dir, interval, null);
+    }
+
+    /**
+     * 分块生成题目，并在每块写出时并行累加统计（统计内存与题数无关），完成后输出 Stats.txt。
+     * @param state 生成状态
+     * @param dir 输出目录
+     * @param interval 检查点间隔（题数）
+     * @param stats 统计累加器，null 表示不统计
+     * @return true 如果生成完成
+     * @throws IOException 读写失败
+     */
+    static boolean generate(Checkpoint state, Path dir, int interval, BankStats stats) throws IOException {
+        return generate(state, dir, interval, stats, -1);
+    }
+
+    /**
+     * 分块生成题目，保存 stopAfter 次检查点后停止（用于模拟中断）。
+     * @param state 生成状态
+     * @param dir 输出目录
+     * @param interval 检查点间隔（题数）
+     * @param stats 统计累加器，null 表示不统计
+     * @param stopAfter 保存这么多次检查点后停止，-1 表示不限
+     * @return true 如果生成完成；提前停止时返回 false 并保留检查点
+     * @throws IOException 读写失败
+     */
+    static boolean generate(Checkpoint state, Path dir, int interval, BankStats stats, int stopAfter)
+            throws IOException {
+        List<Fraction> leaves = buildLeaves(state.range);  // 预生成所有可能叶子值
+        Path ckFile = dir.resolve(Checkpoint.FILE);
+        long maxAttempts = maxAttempts(state.n);
+        int checkpoints = 0;
+        if (state.count == 0 && state.attempts == 0) {
+            Checkpoint.delete(ckFile);  // 新任务：旧检查点对应的输出即将被覆盖
+        }
+
+        try (FileChannel exer = openAt(dir.resolve("Exercises.txt"), state.exerOffset);
+             FileChannel ans = openAt(dir.resolve("Answers.txt"), state.ansOffset);
+             FileChannel index = openAt(Checkpoint.indexPath(ckFile), state.indexOffset)) {
+            List<Expr> pending = new ArrayList<>();       // 当前块的题目
+            List<String> pendingCanon = new ArrayList<>(); // 当前块的规范形式
+            while (state.count + pending.size() < state.n && state.attempts < maxAttempts) {
+                state.attempts++;
+                Expr expr = generateExpr(state.minOps, state.maxOps, leaves, state.rand);  // 生成树
+                if (expr != null && expr.isValid()) {  // 验证有效
+                    String can = expr.getCanonical();
+                    if (state.uniqueCanonicals.add(can)) {  // 唯一检查
+                        pending.add(expr);
+                        pendingCanon.add(can);
+                        if (pending.size() >= interval) {
+                            flushChunk(state, pending, pendingCanon, exer, ans, index, stats);
+                            state.save(ckFile);
+                            if (++checkpoints == stopAfter) return false;
+                        }
+                    }
+                }
+            }
+            flushChunk(state, pending, pendingCanon, exer, ans, index, stats);
+        }
+        Checkpoint.delete(ckFile);  // 已完成，不再需要检查点
+
+        if (state.count < state.n) {
+            System.err.println("警告：仅生成 " + state.count + " 个唯一题目（目标: " + state.n + "）。");
+        }
+        System.out.println("生成 " + state.count + " 个题目到 Exercises.txt 和 Answers.txt");
+        if (stats != null) {
+            stats.write(dir.resolve(BankStats.REPORT_FILE));
+            System.out.println("统计结果输出到 " + BankStats.REPORT_FILE);
+        }
+        return true;
+    }
+
+    /**
+     * 最大尝试次数：随目标题数增长（每题 ATTEMPTS_PER_PROBLEM 次，至少 MIN_ATTEMPTS 次），
+     * 数千万题的长任务不会因固定上限提前结束；取值空间耗尽时仍会停止并给出警告。
+     * @param n 目标题数
+     * @return 最大尝试次数
+     */
+    static long maxAttempts(int n) {
+        return Math.max(MIN_ATTEMPTS, (long) n * ATTEMPTS_PER_PROBLEM);
+    }
+
+    /**
+     * 私有方法：打开输出文件并截断到指定偏移（新任务为0，恢复时丢弃检查点之后的部分）。
+     * @param file 文件
+     * @param offset 偏移
+     * @return 文件通道
+     * @throws IOException 打开失败或文件短于偏移
+     */
+    private static FileChannel openAt(Path file, long offset) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (ch.size() < offset) {
+            ch.close();
+            throw new IOException(file + " 短于检查点记录的偏移 " + offset);
+        }
+        ch.truncate(offset);
+        return ch;
+    }
+
+    /**
+     * 私有方法：把当前块追加到题目、答案和索引文件并落盘，然后清空当前块。
+     * @param state 生成状态，更新题数和偏移
+     * @param pending 当前块的题目
+     * @param pendingCanon 当前块的规范形式
+     * @param exer 题目文件
+     * @param ans 答案文件
+     * @param index 索引文件
+     * @param stats 统计累加器，可为 null
+     * @throws IOException 写入失败
+     */
+    private static void flushChunk(Checkpoint state, List<Expr> pending, List<String> pendingCanon,
+                                   FileChannel exer, FileChannel ans, FileChannel index, BankStats stats)
+            throws IOException {
+        if (stats != null) {
+            stats.merge(pending.parallelStream().collect(BankStats::new, BankStats::accept, BankStats::merge));
+        }
+        long[] written = OutputEngine.write(pending, state.count + 1, exer, state.exerOffset, ans, state.ansOffset);
+        state.exerOffset += written[0];
+        state.ansOffset += written[1];
+        state.appendIndex(index, pendingCanon);
+        exer.force(false);  // 检查点记录的偏移之前的内容必须已落盘
+        ans.force(false);
+        index.force(false);
+        state.count += pending.size();
+        pending.clear();
+        pendingCanon.clear();
+    }
+
+    /**
+     * 按答案约束生成题目：从值索引中直接抽取满足约束的表达式。
+     * @param n 题目数
+     * @param r 范围
+     * @param minOps 每题最少运算符数，0 表示只设上限
+     * @param maxOps 每题最多运算符数
+     * @param constraint 答案约束
+     */
+    static void generateIndexed(int n, int r, int minOps, int maxOps, Predicate<Fraction> constraint) {
+        Random rand = new Random();  // 随机数生成器
+        ValueIndex index = new ValueIndex(buildLeaves(r), maxOps, rand, constraint, n);  // 预计算值索引
+        List<Expr> problems = pickIndexed(index, n, minOps, maxOps, constraint, rand);
+
+        if (problems.size() < n) {
+            System.err.println("警告：满足约束的唯一题目仅 " + problems.size() + " 个（目标: " + n + "）。");
+        }
+
+        writeProblems(problems);
+    }
+
+    /**
+     * 从值索引中无放回抽取题目：每题先在仍有候选的运算符数（minOps 到 maxOps，minOps 为 0 时从 1 起）
+     * 中均匀选一个，再从该层满足约束的条目中随机取一个。第 0 层是范围内的全部叶子，若整体均匀抽样，
+     * 小题库几乎全是不含运算符的单个数，因此 maxOps 大于 0 时不取第 0 层。
+     * @param index 值索引
+     * @param n 题目数
+     * @param minOps 每题最少运算符数
+     * @param maxOps 每题最多运算符数
+     * @param constraint 答案约束
+     * @param rand 随机数生成器
+     * @return 题目列表（候选不足时少于 n）
+     */
+    static List<Expr> pickIndexed(ValueIndex index, int n, int minOps, int maxOps, Predicate<Fraction> constraint,
+                                  Random rand) {
+        List<List<Expr>> pools = new ArrayList<>();  // 各运算符数的候选，已打乱
+        for (int k = maxOps == 0 ? 0 : Math.max(1, minOps); k <= maxOps; k++) {
+            List<Expr> pool = index.matching(constraint, k);
+            Collections.shuffle(pool, rand);
+            if (!pool.isEmpty()) pools.add(pool);
+        }
+
+        Set<String> uniqueCanonicals = new HashSet<>();  // 唯一规范Set
+        List<Expr> problems = new ArrayList<>();  // 题目列表
+        while (problems.size() < n && !pools.isEmpty()) {
+            int p = rand.nextInt(pools.size());  // 先选运算符数
+            List<Expr> pool = pools.get(p);
+            Expr expr = pool.remove(pool.size() - 1);
+            if (pool.isEmpty()) {
+                pools.set(p, pools.get(pools.size() - 1));
+                pools.remove(pools.size() - 1);
+            }
+            if (uniqueCanonicals.add(expr.getCanonical())) {
+                problems.add(expr);
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * 预生成所有可能叶子值：自然数、真分数、混合数。
+     * @param r 范围
+     * @return 叶子值列表
+     */
+    static List<Fraction> buildLeaves(int r) {
+        List<Fraction> leaves = new ArrayList<>();
+        // 自然数：0 到 r-1
+        for (int i = 0; i < r; i++) {
+            leaves.add(new Fraction(i, 1));
+        }
+        // 真分数：分母2~r，分子1~den-1
+        for (int den = 2; den <= r; den++) {
+            for (int num = 1; num < den; num++) {
+                leaves.add(new Fraction(num, den));
+            }
+        }
+        // 混合数：整数1~r-1 + 真分数
+        for (int whole = 1; whole < r; whole++) {
+            for (int den = 2; den <= r; den++) {
+                for (int num = 1; num < den; num++) {
+                    leaves.add(new Fraction(whole * den + num, den));
+                }
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * 输出题目和答案到 Exercises.txt 和 Answers.txt。
+     * @param problems 题目列表
+     */
+    private static void writeProblems(List<Expr> problems) {
+        // 输出到文件：分块并行格式化、定位写
+        try (FileChannel exer = openAt(Paths.get("Exercises.txt"), 0);
+             FileChannel ans = openAt(Paths.get("Answers.txt"), 0)) {
+            OutputEngine.write(problems, 1, exer, 0, ans, 0);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println("生成 " + problems.size() + " 个题目到 Exercises.txt 和 Answers.txt");
+    }
+
+    /**
+     * 生成表达式树：minOps 为 0 时运算符数只设上限（逐节点按概率取叶子）；
+     * 否则在 [minOps, maxOps] 中均匀取运算符数 k，生成恰好 k 个运算符的有效树。
+     * 深树的中间值更容易超出 long 范围，同一个 k 最多重试 EXACT_RETRIES 次，运算符数的分布不偏向浅树。
+     * @param minOps 最少运算符数
+     * @param maxOps 最多运算符数
+     * @param leaves 叶子值列表
+     * @param rand 随机生成器
+     * @return 表达式树；按 k 重试仍失败时为 null
+     */
+    static Expr generateExpr(int minOps, int maxOps, List<Fraction> leaves, Random rand) {
+        if (minOps == 0) return generateExpr(maxOps, leaves, rand);
+        int k = minOps + rand.nextInt(maxOps - minOps + 1);
+        for (int t = 0; t < EXACT_RETRIES; t++) {
+            Expr expr = generateExact(k, leaves, rand);
+            if (expr != null) return expr;
+        }
+        return null;
+    }
+
+    /**
+     * 生成恰好 k 个运算符的有效表达式树，用显式栈分两遍构造：
+     * 先按前序展开各子树的运算符数（左子树随机分得 0 到 k-1 个），再逆序自底向上组合。
+     * 组合时只在使本步有效且不溢出的运算符中随机选取，深树不会因逐步的负数或整除几乎全被拒绝。
+     * @param k 运算符数
+     * @param leaves 叶子值列表
+     * @param rand 随机生成器
+     * @return 表达式树；某一步没有可选运算符（均溢出）时为 null
+     */
+    static Expr generateExact(int k, List<Fraction> leaves, Random rand) {
+        int[] budgets = new int[2 * k + 1];  // 前序：各节点子树的运算符数
+        int count = 0;
+        Deque<Integer> work = new ArrayDeque<>();
+        work.push(k);
+        while (!work.isEmpty()) {
+            int item = work.pop();
+            budgets[count++] = item;
+            if (item == 0) continue;
+            int leftOps = rand.nextInt(item);
+            work.push(item - 1 - leftOps);  // 右子树后展开
+            work.push(leftOps);
+        }
+
+        Deque<Expr> built = new ArrayDeque<>();       // 已完成的子树
+        Deque<Fraction> values = new ArrayDeque<>();  // 对应的值
+        List<String> choices = new ArrayList<>(OPS.length);
+        for (int t = count - 1; t >= 0; t--) {  // 逆前序：子树先于父节点，栈顶为左子树
+            if (budgets[t] == 0) {
+                Fraction leaf = leaves.get(rand.nextInt(leaves.size()));
+                built.push(new Leaf(leaf));
+                values.push(leaf);
+                continue;
+            }
+            Expr left = built.pop();
+            Expr right = built.pop();
+            Fraction l = values.pop();
+            Fraction r = values.pop();
+            choices.clear();
+            for (String op : OPS) {
+                try {
+                    if (Binary.isValidStep(op, l, r)) {
+                        Binary.apply(op, l, r);
+                        choices.add(op);
+                    }
+                } catch (ArithmeticException e) {
+                    // 超出 long 范围，不可选
+                }
+            }
+            if (choices.isEmpty()) return null;
+            String op = choices.get(rand.nextInt(choices.size()));
+            built.push(new Binary(op, left, right));
+            values.push(Binary.apply(op, l, r));
+        }
+        return built.pop();
+    }
+
+    /**
+     * 生成表达式树：rem 表示剩余运算符槽。
+     * 用显式栈按先左后右的顺序展开，随机数消耗顺序与递归展开一致，深树不会栈溢出。
+     * @param rem 最大运算符数
+     * @param leaves 叶子值列表
+     * @param rand 随机生成器
+     * @return 表达式树
+     */
+    static Expr generateExpr(int rem, List<Fraction> leaves, Random rand) {
+        Deque<Integer> work = new ArrayDeque<>();  // >=0：待展开子树的剩余运算符数；<0：组合标记 -(运算符下标+1)
+        Deque<Expr> built = new ArrayDeque<>();    // 已完成的子树
+        work.push(rem);
+        while (!work.isEmpty()) {
+            int item = work.pop();
+            if (item < 0) {  // 左右子树均已完成，组合
+                Expr right = built.pop();
+                Expr left = built.pop();
+                built.push(new Binary(OPS[-item - 1], left, right));
+                continue;
+            }
+            if (item == 0 || rand.nextDouble() < 0.4) {  // 40% 概率或 rem=0 为叶子
+                built.push(new Leaf(leaves.get(rand.nextInt(leaves.size()))));
+                continue;
+            }
+            int op = rand.nextInt(OPS.length);  // 随机运算符
+            int leftRem = rand.nextInt(item);   // 随机分配左剩余
+            int rightRem = item - 1 - leftRem;  // 右剩余
+            work.push(-(op + 1));
+            work.push(rightRem);
+            work.push(leftRem);  // 左子树先展开
+        }
+        return built.pop();
+    }
+
+    /**
+     * 批改功能：加载答案键、逐行比对、输出 Grade.txt。
+     * 题目文件的答案键编译一次后缓存在旁路文件中，重复批改只解析答案行。
+     * @param exerFile 题目文件
+     * @param ansFile 答案文件
+     */
+    static void grade(String exerFile, String ansFile) {
+        grade(exerFile, ansFile, false);
+    }
+
+    /**
+     * 批改功能：byNumber 为 true 时按行首题号匹配答案，并报告缺少和多余的答案。
+     * @param exerFile 题目文件
+     * @param ansFile 答案文件
+     * @param byNumber 是否按题号匹配
+     */
+    static void grade(String exerFile, String ansFile, boolean byNumber) {
+        try {
+            AnswerKey key = AnswerKey.load(Paths.get(exerFile));            // 题目答案键
+            List<String> ansLines = Files.readAllLines(Paths.get(ansFile));  // 读答案行
+            if (byNumber) {
+                writeGrade(Paths.get("Grade.txt"), key, key.join(ansLines));  // 输出 Grade.txt
+            } else {
+                writeGrade(Paths.get("Grade.txt"), key.grade(ansLines));      // 输出 Grade.txt
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 输出批改报告：正确与错误的题号列表。
+     * @param out 报告文件
+     * @param outcomes 每行批改结果（AnswerKey.SKIP/CORRECT/WRONG）
+     * @throws IOException 写入失败
+     */
+    static void writeGrade(Path out, byte[] outcomes) throws IOException {
+        StringJoiner correct = new StringJoiner(", ");  // 正确编号
+        StringJoiner wrong = new StringJoiner(", ");    // 错误编号
+        int correctCount = 0;
+        int wrongCount = 0;
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == AnswerKey.CORRECT) {
+                correct.add(String.valueOf(i + 1));
+                correctCount++;
+            } else if (outcomes[i] == AnswerKey.WRONG) {
+                wrong.add(String.valueOf(i + 1));
+                wrongCount++;
+            }
+        }
+        try (PrintWriter gradeWriter = new PrintWriter(Files.newBufferedWriter(out))) {
+            gradeWriter.println("Correct: " + correctCount + " (" + correct + ")");
+            gradeWriter.println("Wrong: " + wrongCount + " (" + wrong + ")");
+        }
+    }
+
+    /**
+     * 输出按题号批改的报告：正确、错误、缺少答案的题号，以及多余的答案题号。
+     * @param out 报告文件
+     * @param key 答案键（提供各行题号）
+     * @param join 批改结果
+     * @throws IOException 写入失败
+     */
+    static void writeGrade(Path out, AnswerKey key, AnswerKey.Join join) throws IOException {
+        StringJoiner[] lists = {new StringJoiner(", "), new StringJoiner(", "), new StringJoiner(", ")};  // 正确、错误、缺少
+        int[] counts = new int[3];
+        for (int i = 0; i < join.outcomes.length; i++) {
+            int k = join.outcomes[i] - AnswerKey.CORRECT;  // CORRECT、WRONG、MISSING 依次为 0~2
+            if (k < 0) continue;
+            lists[k].add(String.valueOf(key.number(i)));
+            counts[k]++;
+        }
+        StringJoiner unexpected = new StringJoiner(", ");  // 多余编号
+        for (int j = 0; j < join.unexpectedCount; j++) {
+            unexpected.add(String.valueOf(join.unexpected[j]));
+        }
+        try (PrintWriter gradeWriter = new PrintWriter(Files.newBufferedWriter(out))) {
+            gradeWriter.println("Correct: " + counts[0] + " (" + lists[0] + ")");
+            gradeWriter.println("Wrong: " + counts[1] + " (" + lists[1] + ")");
+            gradeWriter.println("Missing: " + counts[2] + " (" + lists[2] + ")");
+            gradeWriter.println("Unexpected: " + join.unexpectedCount + " (" + unexpected + ")");
+        }
+    }
+
+    /**
+     * 内嵌静态类：递归下降解析器，将中缀字符串解析为 Expr 树。
+     */
+    static class Parser {
+        private String s;  // 输入字符串
+        private int pos;   // 当前位置
+
+        /**
+         * 构造函数：初始化解析器。
+         * @param input 输入字符串
+         */
+        public Parser(String input) {
+            this.s = input;
+            this.pos = 0;
+        }
+
+        /**
+         * 入口：解析全表达式。
+         * @return Expr 树
+         */
+        public Expr parse() {
+            return parseAdd();
+        }
+
+        /**
+         * 解析加减层：Mul { (+|-) Mul }（左结合）。
+         * @return 加减表达式
+         */
+        private Expr parseAdd() {
+            Expr e = parseMul();
+            while (true) {
+                String op = peekNextOp();
+                if (op == null || (!op.equals("+") && !op.equals("-"))) break;
+                consumeOp(op);
+                Expr right = parseMul();
+                e = new Binary(op, e, right);
+            }
+            return e;
+        }
+
+        /**
+         * 解析乘除层：Atom { (*|/) Mul }（左结合）。
+         * @return 乘除表达式
+         */
+        private Expr parseMul() {
+            Expr e = parseAtom();
+            while (true) {
+                String op = peekNextOp();
+                if (op == null || (!op.equals("*") && !op.equals("/"))) break;
+                consumeOp(op);
+                Expr right = parseMul();
+                e = new Binary(op, e, right);
+            }
+            return e;
+        }
+
+        /**
+         * 解析原子：数字或 (expr)。
+         * @return 原子表达式
+         */
+        private Expr parseAtom() {
+            skipSpaces();
+            if (pos >= s.length()) throw new RuntimeException("意外结束");
+            if (s.charAt(pos) == '(') {
+                pos++;  // 消费 (
+                Expr e = parseAdd();
+                skipSpaces();
+                if (pos < s.length() && s.charAt(pos) == ')') {
+                    pos++;  // 消费 )
+                } else {
+                    throw new RuntimeException("缺少 )");
+                }
+                return e;
+            } else {
+                String numStr = parseNumberStr();
+                return new Leaf(Fraction.parse(numStr));
+            }
+        }
+
+        /**
+         * 窥视下一个运算符（不消费）。
+         * @return op 或 null
+         */
+        private String peekNextOp() {
+            skipSpaces();
+            if (pos >= s.length()) return null;
+            char ch = s.charAt(pos);
+            if (ch == '+' || ch == '-' || ch == '*' || ch == '/') {
+                return String.valueOf(ch);
+            }
+            return null;
+        }
+
+        /**
+         * 消费运算符。
+         * @param op 预期 op
+         */
+        private void consumeOp(String op) {
+            skipSpaces();
+            if (pos < s.length() && s.charAt(pos) == op.charAt(0)) {
+                pos++;
+            } else {
+                throw new RuntimeException("预期运算符: " + op);
+            }
+        }
+
+        /**
+         * 跳过空格。
+         */
+        private void skipSpaces() {
+            while (pos < s.length() && s.charAt(pos) == ' ') pos++;
+        }
+
+        /**
+         * 解析数字字符串（包括混合数）。
+         * @return 数字字符串
+         */
+        private String parseNumberStr() {
+            skipSpaces();
+            StringBuilder sb = new StringBuilder();
+            while (pos < s.length()) {
+                char ch = s.charAt(pos);
+                if (ch == ' ' || ch == ')' || (ch == '+' || ch == '-' || ch == '*' || ch == '/')) {
+                    break;
+                }
+                sb.append(ch);
+                pos++;
+            }
+            if (sb.length() == 0) throw new RuntimeException("预期数字");
+            return sb.toString();
+        }
+    }
 }
\ No newline at end of file
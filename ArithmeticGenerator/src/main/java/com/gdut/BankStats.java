@@ -0,0 +1,428 @@
+package com.gdut;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * 题库统计：答案数量级分布、分母直方图、运算符构成、树形频次、按值重复的答案数。
+ * 逐行（或逐个表达式）单遍累加到原始类型计数器中，不构建表达式树；
+ * 各线程各自累加后合并，占用内存与题库大小无关：
+ * 分母直方图超过上限的归入溢出桶，树形数受运算符数限制，
+ * 不同答案数用 HyperLogLog 估计（标准误差约 0.8%）。
+ */
+public class BankStats {
+    static final String REPORT_FILE = "Stats.txt";  // 统计报告文件名
+    static final int MAX_DEN = 100;       // 分母直方图上限，更大的归入溢出桶
+    static final int MAX_SHAPE_OPS = 14;  // 树形编码为 int 的运算符数上限，更深的只计总数
+    private static final int MAX_SHAPE_TOKENS = 2 * MAX_SHAPE_OPS + 1;  // 加哨兵位共 30 位
+    private static final int MAGNITUDES = 21;  // 0、(0, 1)、[10^k, 10^(k+1)) k=0..18
+    private static final int HLL_BITS = 14;    // HyperLogLog 寄存器数 2^14
+
+    long exercises;        // 题目数
+    long answers;          // 答案数
+    long unparsed;         // 无法解析的行数
+    long negative;         // 负数答案数
+    long deepShapes;       // 超过 MAX_SHAPE_OPS 的树形数
+    final long[] ops = new long[ArithmeticGenerator.OPS.length];  // 各运算符出现次数
+    final long[] magnitudes = new long[MAGNITUDES];     // 答案数量级分布
+    final long[] denominators = new long[MAX_DEN + 2];  // 分母直方图，末位为溢出桶
+    final IntIntMap shapes = new IntIntMap(64);          // 树形编码 -> 次数
+    private final byte[] registers = new byte[1 << HLL_BITS];  // HyperLogLog 寄存器
+    private int[] opStack = new int[16];  // 解析题目行用的运算符栈（0 为左括号，否则为优先级）
+    private final long[] curOps = new long[ArithmeticGenerator.OPS.length];  // 当前行的运算符计数
+    private int curShape;  // 当前行的树形编码
+    private int curLen;    // 当前行的 token 数
+    private int curDepth;  // 当前行的操作数栈深度
+
+    /**
+     * 累加一道生成中的题目（题目与答案两侧）。
+     * @param expr 表达式
+     */
+    public void accept(Expr expr) {
+        int shape = 1;  // 最高位为哨兵
+        int len = 0;
+        for (Expr node : expr.postorder()) {
+            int bit = 0;
+            if (node instanceof Binary) {
+                bit = 1;
+                ops[ArithmeticGenerator.opIndex(((Binary) node).getOp().charAt(0))]++;
+            }
+            if (len++ < MAX_SHAPE_TOKENS) shape = (shape << 1) | bit;
+        }
+        exercises++;
+        recordShape(shape, len);
+        Fraction v = expr.eval();
+        long num = v.getNumerator();
+        long den = v.getDenominator();
+        boolean neg = num < 0;
+        num = Math.abs(num);
+        recordAnswer(neg, num / den, num % den, den);
+    }
+
+    /**
+     * 累加一行题目："N. 表达式 ="。按调度场算法扫描记号得到后缀序树形，不构建表达式树。
+     * @param line 题目行
+     */
+    public void acceptExercise(String line) {
+        int start = line.indexOf('.');
+        int end = line.lastIndexOf('=');
+        if (start < 0 || end <= start) {
+            unparsed++;
+            return;
+        }
+        curShape = 1;
+        curLen = 0;
+        curDepth = 0;
+        Arrays.fill(curOps, 0);
+        int top = 0;  // 运算符栈顶
+        int i = start + 1;
+        while (i < end) {
+            char c = line.charAt(i);
+            if (c == ' ') {
+                i++;
+            } else if (c == '(') {
+                top = pushOp(top, 0);
+                i++;
+            } else if (c == ')') {
+                while (top > 0 && opStack[top - 1] != 0) {
+                    top--;
+                    if (!emitOp()) {
+                        unparsed++;  // 缺少操作数
+                        return;
+                    }
+                }
+                if (top == 0) {
+                    unparsed++;  // 括号不匹配
+                    return;
+                }
+                top--;
+                i++;
+            } else {
+                int j = i;
+                while (j < end && line.charAt(j) != ' ' && line.charAt(j) != '(' && line.charAt(j) != ')') j++;
+                int op = j == i + 1 ? ArithmeticGenerator.opIndex(c) : -1;
+                i = j;
+                if (op < 0) {
+                    emitLeaf();
+                    continue;
+                }
+                int prec = op < 2 ? 1 : 2;
+                while (top > 0 && opStack[top - 1] >= prec) {  // 左结合：弹出优先级不低于当前的运算符
+                    top--;
+                    if (!emitOp()) {
+                        unparsed++;
+                        return;
+                    }
+                }
+                curOps[op]++;
+                top = pushOp(top, prec);
+            }
+        }
+        while (top > 0) {
+            if (opStack[--top] == 0 || !emitOp()) {
+                unparsed++;  // 括号不匹配或缺少操作数
+                return;
+            }
+        }
+        if (curDepth != 1) {
+            unparsed++;
+            return;
+        }
+        exercises++;
+        for (int k = 0; k < ops.length; k++) ops[k] += curOps[k];
+        recordShape(curShape, curLen);
+    }
+
+    /**
+     * 累加一行答案："N. 值"，值为整数、真分数或带分数，直接解析为原始类型。
+     * @param line 答案行
+     */
+    public void acceptAnswer(String line) {
+        int i = line.indexOf('.') + 1;
+        if (i == 0) {
+            unparsed++;
+            return;
+        }
+        int n = line.length();
+        while (i < n && line.charAt(i) == ' ') i++;
+        boolean neg = i < n && line.charAt(i) == '-';
+        if (neg) i++;
+        long whole = 0;
+        long num = 0;
+        long den = 1;
+        int part = 0;  // 0：整数或分子，1：带分数的分数部分，2：分母
+        long value = 0;
+        int digits = 0;
+        for (; i < n && line.charAt(i) != ' '; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9' && digits < 18) {  // 18 位以内不溢出
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c == '\'' && part == 0 && digits > 0) {
+                whole = value;
+                part = 1;
+                value = 0;
+                digits = 0;
+            } else if (c == '/' && part < 2 && digits > 0) {
+                num = value;
+                part = 2;
+                value = 0;
+                digits = 0;
+            } else {
+                unparsed++;
+                return;
+            }
+        }
+        if (digits == 0 || part == 1 || (part == 2 && value == 0)) {
+            unparsed++;
+            return;
+        }
+        if (part == 0) {
+            whole = value;
+        } else {
+            den = value;
+        }
+        whole += num / den;  // 假分数也按真分数归一
+        num %= den;
+        long g = Fraction.gcd(num, den);
+        recordAnswer(neg && (whole != 0 || num != 0), whole, num / g, den / g);
+    }
+
+    /**
+     * 合并另一个统计结果。
+     * @param other 另一个统计结果
+     * @return this
+     */
+    public BankStats merge(BankStats other) {
+        exercises += other.exercises;
+        answers += other.answers;
+        unparsed += other.unparsed;
+        negative += other.negative;
+        deepShapes += other.deepShapes;
+        for (int k = 0; k < ops.length; k++) ops[k] += other.ops[k];
+        for (int k = 0; k < magnitudes.length; k++) magnitudes[k] += other.magnitudes[k];
+        for (int k = 0; k < denominators.length; k++) denominators[k] += other.denominators[k];
+        for (int key : other.shapes.sortedKeys()) shapes.increment(key, other.shapes.get(key, 0));
+        for (int k = 0; k < registers.length; k++) registers[k] = (byte) Math.max(registers[k], other.registers[k]);
+        return this;
+    }
+
+    /**
+     * 单遍并行统计题目文件和答案文件（任一可为 null）。
+     * Files.lines 的并行流按文件区间切分，各线程各自累加后合并。
+     * @param exerFile 题目文件
+     * @param ansFile 答案文件
+     * @return 统计结果
+     * @throws IOException 读取失败
+     */
+    public static BankStats ofFiles(Path exerFile, Path ansFile) throws IOException {
+        BankStats stats = new BankStats();
+        if (exerFile != null) {
+            try (Stream<String> lines = Files.lines(exerFile)) {
+                stats.merge(lines.parallel().collect(BankStats::new, BankStats::acceptExercise, BankStats::merge));
+            }
+        }
+        if (ansFile != null) {
+            try (Stream<String> lines = Files.lines(ansFile)) {
+                stats.merge(lines.parallel().collect(BankStats::new, BankStats::acceptAnswer, BankStats::merge));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 不同答案值个数的 HyperLogLog 估计。
+     * @return 估计值
+     */
+    public long distinctAnswers() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);  // 小基数时改用线性计数
+        }
+        return Math.min(answers, Math.round(estimate));
+    }
+
+    /**
+     * 输出统计报告。
+     * @param out 报告文件
+     * @throws IOException 写入失败
+     */
+    public void write(Path out) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out))) {
+            w.println("Exercises: " + exercises);
+            w.println("Answers: " + answers);
+            w.println("Unparsed lines: " + unparsed);
+            long totalOps = 0;
+            for (long c : ops) totalOps += c;
+            w.println("Operators: " + totalOps);
+            for (int k = 0; k < ops.length; k++) {
+                w.println("  " + ArithmeticGenerator.OPS[k] + ": " + count(ops[k], totalOps));
+            }
+            w.println("Answers by magnitude:");
+            if (negative > 0) w.println("  negative: " + count(negative, answers));
+            for (int k = 0; k < magnitudes.length; k++) {
+                if (magnitudes[k] > 0) w.println("  " + magnitudeLabel(k) + ": " + count(magnitudes[k], answers));
+            }
+            w.println("Denominators:");
+            for (int d = 1; d < denominators.length; d++) {
+                if (denominators[d] == 0) continue;
+                String label = d <= MAX_DEN ? String.valueOf(d) : ">" + MAX_DEN;
+                w.println("  " + label + ": " + count(denominators[d], answers));
+            }
+            w.println("Tree shapes: " + (shapes.size() + (deepShapes > 0 ? 1 : 0)));
+            List<int[]> byCount = new ArrayList<>();
+            for (int key : shapes.sortedKeys()) byCount.add(new int[]{key, shapes.get(key, 0)});
+            byCount.sort((a, b) -> Integer.compare(b[1], a[1]));
+            for (int[] e : byCount) {
+                w.println("  " + shapeLabel(e[0]) + ": " + count(e[1], exercises));
+            }
+            if (deepShapes > 0) w.println("  >" + MAX_SHAPE_OPS + " ops: " + count(deepShapes, exercises));
+            long distinct = distinctAnswers();
+            w.println("Distinct answers (approx.): " + distinct);
+            w.println("Duplicate answers (approx.): " + (answers - distinct));
+        }
+    }
+
+    /**
+     * 私有方法：记录一个答案（已约分，rem/den 为真分数部分）。
+     * @param neg 是否为负
+     * @param whole 整数部分的绝对值
+     * @param rem 分子
+     * @param den 分母
+     */
+    private void recordAnswer(boolean neg, long whole, long rem, long den) {
+        answers++;
+        if (neg) negative++;
+        int mag;
+        if (whole == 0) {
+            mag = rem == 0 ? 0 : 1;
+        } else {
+            mag = 2;
+            for (long w = whole; w >= 10; w /= 10) mag++;
+        }
+        magnitudes[mag]++;
+        denominators[den <= MAX_DEN ? (int) den : MAX_DEN + 1]++;
+
+        long h = mix(mix(whole * 0x9E3779B97F4A7C15L + rem) ^ (den * 0xC2B2AE3D27D4EB4FL) ^ (neg ? 1 : 0));
+        int idx = (int) (h >>> (64 - HLL_BITS));
+        int rank = Long.numberOfLeadingZeros((h << HLL_BITS) | (1L << (HLL_BITS - 1))) + 1;
+        if (rank > registers[idx]) registers[idx] = (byte) rank;
+    }
+
+    /**
+     * 私有方法：记录一个树形。
+     * @param shape 后缀序编码（叶子 0、运算符 1，最高位哨兵）
+     * @param len token 数
+     */
+    private void recordShape(int shape, int len) {
+        if (len > MAX_SHAPE_TOKENS) {
+            deepShapes++;
+        } else {
+            shapes.increment(shape, 1);
+        }
+    }
+
+    /**
+     * 私有方法：当前行输出一个叶子 token。
+     */
+    private void emitLeaf() {
+        curDepth++;
+        if (curLen++ < MAX_SHAPE_TOKENS) curShape <<= 1;
+    }
+
+    /**
+     * 私有方法：当前行输出一个运算符 token。
+     * @return false 如果缺少操作数
+     */
+    private boolean emitOp() {
+        if (curDepth < 2) return false;
+        curDepth--;
+        if (curLen++ < MAX_SHAPE_TOKENS) curShape = (curShape << 1) | 1;
+        return true;
+    }
+
+    /**
+     * 私有方法：运算符栈压栈，满时扩容。
+     * @param top 栈顶
+     * @param value 压入值
+     * @return 新栈顶
+     */
+    private int pushOp(int top, int value) {
+        if (top == opStack.length) opStack = Arrays.copyOf(opStack, top * 2);
+        opStack[top] = value;
+        return top + 1;
+    }
+
+    /**
+     * 私有静态方法：树形编码转为括号形式，如 ((n n) n)。
+     * @param shape 后缀序编码
+     * @return 括号形式
+     */
+    static String shapeLabel(int shape) {
+        int len = 31 - Integer.numberOfLeadingZeros(shape);
+        Deque<String> stack = new ArrayDeque<>();
+        for (int k = len - 1; k >= 0; k--) {
+            if ((shape >>> k & 1) == 0) {
+                stack.push("n");
+            } else {
+                String right = stack.pop();
+                String left = stack.pop();
+                stack.push("(" + left + " " + right + ")");
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * 私有静态方法：数量级分桶的标签。
+     * @param k 桶下标
+     * @return 标签
+     */
+    private static String magnitudeLabel(int k) {
+        if (k == 0) return "0";
+        if (k == 1) return "(0, 1)";
+        String low = "1" + "0".repeat(k - 2);
+        return k == MAGNITUDES - 1 ? ">=" + low : "[" + low + ", " + low + "0)";
+    }
+
+    /**
+     * 私有静态方法：计数及百分比。
+     * @param c 计数
+     * @param total 总数
+     * @return 如 "12 (3.4%)"
+     */
+    private static String count(long c, long total) {
+        return c + String.format(Locale.ROOT, " (%.1f%%)", total == 0 ? 0.0 : 100.0 * c / total);
+    }
+
+    /**
+     * 私有静态方法：64 位混合函数（MurmurHash3 fmix64）。
+     * @param h 输入
+     * @return 散列值
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
\ No newline at end of file
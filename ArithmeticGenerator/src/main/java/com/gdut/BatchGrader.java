@@ -0,0 +1,167 @@
+package com.gdut;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量批改类：一份题目文件对一个目录（或通配符）下的所有答案文件并发批改。
+ * 答案键只加载一次，各提交在工作窃取线程池中并行批改，
+ * 每份提交输出一个报告，另输出按题统计错误率的汇总。
+ */
+public class BatchGrader {
+    static final String REPORT_DIR = "Grades";         // 报告目录
+    static final String SUMMARY_FILE = "Summary.txt";  // 汇总报告文件名
+
+    /**
+     * 内嵌静态类：单份提交的批改结果。
+     */
+    static class Submission {
+        final Path file;        // 答案文件
+        final byte[] outcomes;  // 每行结果，批改失败时为 null
+
+        /**
+         * 构造函数：创建批改结果。
+         * @param file 答案文件
+         * @param outcomes 每行结果
+         */
+        Submission(Path file, byte[] outcomes) {
+            this.file = file;
+            this.outcomes = outcomes;
+        }
+    }
+
+    /**
+     * 批量批改入口。
+     * @param exerFile 题目文件
+     * @param target 答案目录或通配符（如 answers/*.txt）
+     * @param outDir 报告目录
+     * @throws IOException 读写失败
+     */
+    public static void run(String exerFile, String target, Path outDir) throws IOException {
+        Path exerPath = Paths.get(exerFile);
+        List<Path> files = resolve(target, exerPath);
+        AnswerKey key = AnswerKey.load(exerPath);  // 所有提交共享同一答案键
+        Files.createDirectories(outDir);
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        List<Submission> results;
+        try {
+            results = pool.submit(() -> files.parallelStream()
+                    .map(f -> gradeOne(key, f, outDir))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量批改被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("批量批改失败", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        writeSummary(outDir.resolve(SUMMARY_FILE), key.size(), results);
+        System.out.println("批改 " + results.size() + " 份答案，报告输出到 " + outDir);
+    }
+
+    /**
+     * 批改单份提交并输出其报告；答案文件无法读取或解析时记为失败，不影响其他提交。
+     * @param key 答案键
+     * @param file 答案文件
+     * @param outDir 报告目录
+     * @return 批改结果
+     */
+    static Submission gradeOne(AnswerKey key, Path file, Path outDir) {
+        byte[] outcomes;
+        try {
+            outcomes = key.grade(Files.readAllLines(file));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("错误：无法批改 " + file + "：" + e.getMessage());
+            return new Submission(file, null);
+        }
+        try {
+            ArithmeticGenerator.writeGrade(reportPath(outDir, file), outcomes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Submission(file, outcomes);
+    }
+
+    /**
+     * 单份提交的报告路径：答案文件名加 ".Grade.txt"。
+     * @param outDir 报告目录
+     * @param file 答案文件
+     * @return 报告路径
+     */
+    static Path reportPath(Path outDir, Path file) {
+        return outDir.resolve(file.getFileName() + ".Grade.txt");
+    }
+
+    /**
+     * 解析批改目标：目录取其中所有普通文件，否则按文件名通配符匹配。
+     * @param target 目录或通配符
+     * @param exerPath 题目文件（排除在外）
+     * @return 排序后的答案文件列表
+     * @throws IOException 列目录失败
+     */
+    static List<Path> resolve(String target, Path exerPath) throws IOException {
+        Path targetPath = Paths.get(target);
+        Path dir;
+        PathMatcher matcher;
+        if (Files.isDirectory(targetPath)) {
+            dir = targetPath;
+            matcher = p -> true;
+        } else {
+            dir = targetPath.getParent() == null ? Paths.get(".") : targetPath.getParent();
+            matcher = dir.getFileSystem().getPathMatcher("glob:" + targetPath.getFileName());
+        }
+        Path exerAbs = exerPath.toAbsolutePath().normalize();
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries
+                    .filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(p.getFileName()))
+                    .filter(p -> !p.toAbsolutePath().normalize().equals(exerAbs))
+                    .filter(p -> !p.getFileName().toString().endsWith(".key"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 输出汇总报告：提交数、失败列表、每题错误率。
+     * @param out 汇总文件
+     * @param problems 题目行数
+     * @param results 批改结果
+     * @throws IOException 写入失败
+     */
+    static void writeSummary(Path out, int problems, List<Submission> results) throws IOException {
+        int[] graded = new int[problems];  // 每题被批改次数
+        int[] wrong = new int[problems];   // 每题错误次数
+        List<String> failed = new ArrayList<>();
+        for (Submission s : results) {
+            if (s.outcomes == null) {
+                failed.add(s.file.getFileName().toString());
+                continue;
+            }
+            for (int i = 0; i < s.outcomes.length; i++) {
+                if (s.outcomes[i] == AnswerKey.SKIP) continue;
+                graded[i]++;
+                if (s.outcomes[i] == AnswerKey.WRONG) wrong[i]++;
+            }
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out))) {
+            w.println("Submissions: " + results.size());
+            w.println("Failed: " + failed.size() + " (" + String.join(", ", failed) + ")");
+            for (int i = 0; i < problems; i++) {
+                if (graded[i] == 0) continue;
+                double rate = 100.0 * wrong[i] / graded[i];
+                w.println((i + 1) + ". Wrong: " + wrong[i] + "/" + graded[i] + String.format(Locale.ROOT, " (%.1f%%)", rate));
+            }
+        }
+    }
+}
\ No newline at end of file
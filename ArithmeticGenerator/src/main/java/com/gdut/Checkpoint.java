@@ -0,0 +1,195 @@
+package com.gdut;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 生成检查点：长时间生成时定期持久化随机数状态、去重索引和输出文件偏移，
+ * 进程中断后可从最近的检查点继续，输出与不中断运行完全一致。
+ *
+ * 检查点文件布局：[magic long][n int][r int][minOps int][maxOps int][已生成题数 int][尝试次数 long]
+ * [题目文件偏移 long][答案文件偏移 long][索引文件偏移 long][随机数状态长度 int][随机数状态 byte...]
+ * 去重索引单独追加写入 "检查点文件名.idx"，每条为 [长度 int][规范形式 UTF-8 byte...]，
+ * 每次检查点只追加新增部分，写检查点的耗时与检查点间隔成正比而非与总题数成正比。
+ */
+public class Checkpoint {
+    static final String FILE = "generate.ckpt";  // 默认检查点文件名
+    private static final long MAGIC = 0x47454E434B505403L;  // "GENCKPT" + 版本号（03：增加 minOps）
+
+    final int n;       // 目标题数
+    final int range;   // 数值范围
+    final int minOps;  // 每题最少运算符数，0 表示只设上限
+    final int maxOps;  // 每题最多运算符数
+    final Random rand;                 // 随机数生成器（恢复时为检查点时刻的状态）
+    final Set<String> uniqueCanonicals; // 去重索引
+    int count;          // 已写出的题数
+    long attempts;      // 已尝试次数（上限随题数增长，可超过 int 范围）
+    long exerOffset;    // 题目文件已写出字节数
+    long ansOffset;     // 答案文件已写出字节数
+    long indexOffset;   // 索引文件已写出字节数
+
+    /**
+     * 构造函数：新的生成任务。
+     * @param n 目标题数
+     * @param range 数值范围
+     * @param maxOps 每题最多运算符数
+     * @param rand 随机数生成器
+     */
+    public Checkpoint(int n, int range, int maxOps, Random rand) {
+        this(n, range, 0, maxOps, rand);
+    }
+
+    /**
+     * 构造函数：新的生成任务，运算符数在 [minOps, maxOps] 中。
+     * @param n 目标题数
+     * @param range 数值范围
+     * @param minOps 每题最少运算符数，0 表示只设上限
+     * @param maxOps 每题最多运算符数
+     * @param rand 随机数生成器
+     */
+    public Checkpoint(int n, int range, int minOps, int maxOps, Random rand) {
+        this(n, range, minOps, maxOps, rand, new HashSet<>());
+    }
+
+    /**
+     * 私有构造函数：指定去重索引。
+     * @param n 目标题数
+     * @param range 数值范围
+     * @param minOps 每题最少运算符数
+     * @param maxOps 每题最多运算符数
+     * @param rand 随机数生成器
+     * @param uniqueCanonicals 去重索引
+     */
+    private Checkpoint(int n, int range, int minOps, int maxOps, Random rand, Set<String> uniqueCanonicals) {
+        this.n = n;
+        this.range = range;
+        this.minOps = minOps;
+        this.maxOps = maxOps;
+        this.rand = rand;
+        this.uniqueCanonicals = uniqueCanonicals;
+    }
+
+    /**
+     * 索引文件路径：检查点文件名加 ".idx"。
+     * @param file 检查点文件
+     * @return 索引文件
+     */
+    static Path indexPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    /**
+     * 追加新题的规范形式到索引文件。
+     * @param index 索引文件通道（位于 indexOffset）
+     * @param canonicals 新题的规范形式
+     * @throws IOException 写入失败
+     */
+    void appendIndex(FileChannel index, List<String> canonicals) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String can : canonicals) {
+            byte[] b = can.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        while (buf.hasRemaining()) {
+            indexOffset += index.write(buf, indexOffset);
+        }
+    }
+
+    /**
+     * 保存检查点：先写临时文件再原子替换，中断时旧检查点仍然完整。
+     * @param file 检查点文件
+     * @throws IOException 写入失败
+     */
+    void save(Path file) throws IOException {
+        ByteArrayOutputStream randBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(randBytes)) {
+            oos.writeObject(rand);  // java.util.Random 可序列化，包含完整种子状态
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(n);
+            out.writeInt(range);
+            out.writeInt(minOps);
+            out.writeInt(maxOps);
+            out.writeInt(count);
+            out.writeLong(attempts);
+            out.writeLong(exerOffset);
+            out.writeLong(ansOffset);
+            out.writeLong(indexOffset);
+            out.writeInt(randBytes.size());
+            randBytes.writeTo(out);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 加载检查点，并从索引文件读回去重索引（只读到检查点记录的偏移）。
+     * @param file 检查点文件
+     * @return 检查点
+     * @throws IOException 读取失败或文件格式错误
+     */
+    static Checkpoint load(Path file) throws IOException {
+        Checkpoint ck;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != MAGIC) throw new IOException("不是检查点文件: " + file);
+            int n = in.readInt();
+            int range = in.readInt();
+            int minOps = in.readInt();
+            int maxOps = in.readInt();
+            int count = in.readInt();
+            long attempts = in.readLong();
+            long exerOffset = in.readLong();
+            long ansOffset = in.readLong();
+            long indexOffset = in.readLong();
+            byte[] randBytes = new byte[in.readInt()];
+            in.readFully(randBytes);
+            Random rand;
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(randBytes))) {
+                rand = (Random) ois.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("检查点随机数状态损坏: " + file, e);
+            }
+            ck = new Checkpoint(n, range, minOps, maxOps, rand, new HashSet<>(Math.max(16, count * 2)));
+            ck.count = count;
+            ck.attempts = attempts;
+            ck.exerOffset = exerOffset;
+            ck.ansOffset = ansOffset;
+            ck.indexOffset = indexOffset;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath(file))))) {
+            long read = 0;
+            while (read < ck.indexOffset) {
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                ck.uniqueCanonicals.add(new String(b, StandardCharsets.UTF_8));
+                read += 4 + b.length;
+            }
+        }
+        return ck;
+    }
+
+    /**
+     * 删除检查点及其索引文件（生成完成后调用）。
+     * @param file 检查点文件
+     * @throws IOException 删除失败
+     */
+    static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexPath(file));
+    }
+}
\ No newline at end of file
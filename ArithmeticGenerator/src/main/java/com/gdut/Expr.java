@@ -1,40 +1,309 @@
-package com.gdut;
-
-/**
- * 抽象表达式类：定义表达式树的通用接口。
- */
-public abstract class Expr {
-    /**
-     * 中缀输出：根据优先级添加括号。
-     * @param parentPrec 父优先级
-     * @param isRightChild 是否右孩子
-     * @return 中缀字符串
-     */
-    public abstract String toInfix(int parentPrec, boolean isRightChild);
-
-    /**
-     * 获取规范字符串：用于唯一性检查。
-     * @return 规范形式
-     */
-    public abstract String getCanonical();
-
-    /**
-     * 计算表达式值。
-     * @return 分数结果
-     */
-    public abstract Fraction eval();
-
-    /**
-     * 验证表达式是否有效（无负数、真分数除法等）。
-     * @return true 如果有效
-     */
-    public abstract boolean isValid();
-
-    /**
-     * 默认中缀调用：无父优先级。
-     * @return 中缀字符串
-     */
-    public String toInfix() {
-        return toInfix(0, false);
-    }
+package com.gdut;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 抽象表达式类：定义表达式树的通用接口。
+ * 树上的遍历均用显式栈实现，深树不受调用栈深度限制；计算、验证与中缀输出耗时与节点数成线性。
+ */
+public abstract class Expr {
+    // 叶子编号顺序：按 (分子, 分母)，分数已约分，任意全序即可，不做交叉相乘，不会溢出
+    private static final Comparator<Fraction> LEAF_ORDER =
+            Comparator.comparingLong(Fraction::getNumerator).thenComparingLong(Fraction::getDenominator);
+
+    /**
+     * 中缀输出：根据优先级添加括号。
+     * 显式栈中序展开，直接写入同一个 StringBuilder，耗时与输出长度成线性。
+     * @param parentPrec 父优先级
+     * @param isRightChild 是否右孩子
+     * @return 中缀字符串
+     */
+    public String toInfix(int parentPrec, boolean isRightChild) {
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> stack = new ArrayDeque<>();  // Expr 为待展开节点，String 为待输出文本
+        Deque<Integer> precs = new ArrayDeque<>(); // 与待展开节点一一对应：父优先级，右孩子取负
+        stack.push(this);
+        precs.push(isRightChild ? -parentPrec - 1 : parentPrec);
+        while (!stack.isEmpty()) {
+            Object item = stack.pop();
+            if (item instanceof String) {
+                sb.append((String) item);
+                continue;
+            }
+            int ctx = precs.pop();
+            if (item instanceof Leaf) {
+                sb.append(((Leaf) item).getValue().toString());
+                continue;
+            }
+            Binary b = (Binary) item;
+            boolean right = ctx < 0;
+            int pPrec = right ? -ctx - 1 : ctx;
+            int myPrec = b.getPrec();
+            boolean needParen = (myPrec < pPrec) || (myPrec == pPrec && right);
+            if (needParen) {
+                sb.append('(');
+                stack.push(")");
+            }
+            stack.push(b.getRight());
+            precs.push(-myPrec - 1);
+            stack.push(" " + b.getOp() + " ");
+            stack.push(b.getLeft());
+            precs.push(myPrec);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 获取规范字符串：全括号 + 可交换运算按子树序号排列左右，用于唯一性检查。
+     * 自底向上按高度给每个规范子树编号：叶子按 (分子, 分母) 排序编号，内部节点按 (运算符, 左序号, 右序号)
+     * 排序编号（可交换运算取 (较小, 较大)），相同规范子树得到相同序号；
+     * 序号只由子树本身决定，与遍历顺序无关，不同调用、不同进程间一致（检查点索引跨进程保存规范形式）。
+     * 只在根上用显式栈输出一次字符串，耗时 O(n log n)。
+     * @return 规范形式
+     */
+    public String getCanonical() {
+        List<Expr> nodes = postorder();
+        int count = nodes.size();
+        int[] left = new int[count];    // 左孩子下标（右孩子为 i - 1）
+        int[] height = new int[count];  // 子树高度
+        int maxHeight = shape(nodes, left, height);
+        int[] start = new int[maxHeight + 2];  // 各高度在 byHeight 中的起点
+        int[] byHeight = groupByHeight(height, start);
+        int[] rank = new int[count];
+        boolean[] swap = new boolean[count];  // 可交换运算是否交换左右
+        int next = rankLeaves(nodes, byHeight, start[1], rank);
+        for (int h = 1; h <= maxHeight; h++) {
+            next = rankLevel(nodes, byHeight, start[h], start[h + 1], left, rank, swap, next);
+        }
+        return emit(nodes, left, swap);
+    }
+
+    /**
+     * 私有方法：由后序列表求各节点的左孩子下标和子树高度。
+     * @param nodes 后序节点列表
+     * @param left 输出：左孩子下标
+     * @param height 输出：子树高度
+     * @return 最大高度
+     */
+    private static int shape(List<Expr> nodes, int[] left, int[] height) {
+        int[] size = new int[nodes.size()];  // 子树节点数
+        int maxHeight = 0;
+        for (int i = 0; i < size.length; i++) {
+            size[i] = 1;
+            if (nodes.get(i) instanceof Binary) {
+                int r = i - 1;
+                int l = r - size[r];
+                left[i] = l;
+                size[i] += size[l] + size[r];
+                height[i] = Math.max(height[l], height[r]) + 1;
+                maxHeight = Math.max(maxHeight, height[i]);
+            }
+        }
+        return maxHeight;
+    }
+
+    /**
+     * 私有方法：按高度分组（计数排序）。
+     * @param height 子树高度
+     * @param start 输出：各高度在返回数组中的起点，长度为最大高度 + 2
+     * @return 按高度排列的节点下标
+     */
+    private static int[] groupByHeight(int[] height, int[] start) {
+        for (int h : height) start[h + 1]++;
+        for (int h = 0; h + 1 < start.length; h++) start[h + 1] += start[h];
+        int[] byHeight = new int[height.length];
+        int[] fill = start.clone();
+        for (int i = 0; i < height.length; i++) byHeight[fill[height[i]]++] = i;
+        return byHeight;
+    }
+
+    /**
+     * 私有方法：给叶子（高度 0）编号，相同值同号。
+     * @param nodes 后序节点列表
+     * @param byHeight 按高度排列的节点下标
+     * @param leafCount 叶子数
+     * @param rank 输出：序号
+     * @return 下一个可用序号
+     */
+    private static int rankLeaves(List<Expr> nodes, int[] byHeight, int leafCount, int[] rank) {
+        Fraction[] values = new Fraction[leafCount];
+        for (int k = 0; k < leafCount; k++) values[k] = ((Leaf) nodes.get(byHeight[k])).getValue();
+        Fraction[] sorted = values.clone();
+        Arrays.sort(sorted, LEAF_ORDER);
+        int distinct = 0;
+        for (int k = 0; k < leafCount; k++) {
+            if (k == 0 || !sorted[k].equals(sorted[k - 1])) sorted[distinct++] = sorted[k];
+        }
+        for (int k = 0; k < leafCount; k++) {
+            rank[byHeight[k]] = Arrays.binarySearch(sorted, 0, distinct, values[k], LEAF_ORDER);
+        }
+        return distinct;
+    }
+
+    /**
+     * 私有方法：给同一高度的内部节点编号，键为 (运算符, 前序号, 后序号)，相同键同号。
+     * @param nodes 后序节点列表
+     * @param byHeight 按高度排列的节点下标
+     * @param from 本层起点
+     * @param to 本层终点（不含）
+     * @param left 左孩子下标
+     * @param rank 输入下层序号，输出本层序号
+     * @param swap 输出：可交换运算是否交换左右
+     * @param next 下一个可用序号
+     * @return 本层编号后下一个可用序号
+     */
+    private static int rankLevel(List<Expr> nodes, int[] byHeight, int from, int to, int[] left,
+                                 int[] rank, boolean[] swap, int next) {
+        if (to - from == 1) {  // 本层只有一个节点：无需排序
+            int i = byHeight[from];
+            swap[i] = ((Binary) nodes.get(i)).isComm() && rank[i - 1] < rank[left[i]];
+            rank[i] = next;
+            return next + 1;
+        }
+        long[] keys = new long[to - from];
+        for (int k = 0; k < keys.length; k++) {
+            int i = byHeight[from + k];
+            Binary b = (Binary) nodes.get(i);
+            int l = rank[left[i]];
+            int r = rank[i - 1];
+            swap[i] = b.isComm() && r < l;
+            int first = swap[i] ? r : l;
+            int second = swap[i] ? l : r;
+            keys[k] = (long) opIndex(b) << 60 | (long) first << 30 | second;
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (k == 0 || sorted[k] != sorted[k - 1]) sorted[distinct++] = sorted[k];
+        }
+        for (int k = 0; k < keys.length; k++) {
+            rank[byHeight[from + k]] = next + Arrays.binarySearch(sorted, 0, distinct, keys[k]);
+        }
+        return next + distinct;
+    }
+
+    /**
+     * 私有方法：从根用显式栈输出全括号字符串，可交换运算按 swap 交换左右。
+     * @param nodes 后序节点列表
+     * @param left 左孩子下标
+     * @param swap 是否交换左右
+     * @return 规范形式
+     */
+    private static String emit(List<Expr> nodes, int[] left, boolean[] swap) {
+        StringBuilder sb = new StringBuilder();
+        int[] stack = new int[2 * nodes.size() + 1];  // 非负为待展开节点下标，-1 为右括号，-2 - k 为运算符 OPS[k]
+        int top = 0;
+        stack[top++] = nodes.size() - 1;
+        while (top > 0) {
+            int item = stack[--top];
+            if (item == -1) {
+                sb.append(')');
+                continue;
+            }
+            if (item < -1) {
+                sb.append(' ').append(ArithmeticGenerator.OPS[-2 - item]).append(' ');
+                continue;
+            }
+            Expr node = nodes.get(item);
+            if (node instanceof Leaf) {
+                sb.append(((Leaf) node).getValue().toString());
+                continue;
+            }
+            sb.append('(');
+            stack[top++] = -1;
+            stack[top++] = swap[item] ? left[item] : item - 1;
+            stack[top++] = -2 - opIndex((Binary) node);
+            stack[top++] = swap[item] ? item - 1 : left[item];
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 私有方法：内部节点的运算符在 ArithmeticGenerator.OPS 中的下标。
+     * @param b 内部节点
+     * @return 下标
+     */
+    private static int opIndex(Binary b) {
+        int k = ArithmeticGenerator.opIndex(b.getOp().charAt(0));
+        if (k < 0) throw new IllegalArgumentException("未知运算符: " + b.getOp());
+        return k;
+    }
+
+    /**
+     * 计算表达式值。
+     * @return 分数结果
+     */
+    public Fraction eval() {
+        Deque<Fraction> stack = new ArrayDeque<>();
+        for (Expr node : postorder()) {
+            if (node instanceof Binary) {
+                Fraction r = stack.pop();
+                Fraction l = stack.pop();
+                stack.push(Binary.apply(((Binary) node).getOp(), l, r));
+            } else {
+                stack.push(((Leaf) node).getValue());
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * 验证表达式是否有效（无负数、真分数除法、中间结果不溢出）。
+     * 自底向上一次遍历，每个节点只计算一次。
+     * @return true 如果有效
+     */
+    public boolean isValid() {
+        Deque<Fraction> stack = new ArrayDeque<>();
+        try {
+            for (Expr node : postorder()) {
+                if (node instanceof Binary) {
+                    String op = ((Binary) node).getOp();
+                    Fraction r = stack.pop();
+                    Fraction l = stack.pop();
+                    if (!Binary.isValidStep(op, l, r)) return false;
+                    stack.push(Binary.apply(op, l, r));
+                } else {
+                    stack.push(((Leaf) node).getValue());
+                }
+            }
+        } catch (ArithmeticException e) {
+            return false;  // 分子分母超出 long 范围
+        }
+        return true;
+    }
+
+    /**
+     * 默认中缀调用：无父优先级。
+     * @return 中缀字符串
+     */
+    public String toInfix() {
+        return toInfix(0, false);
+    }
+
+    /**
+     * 非递归后序遍历（左-右-根）。
+     * @return 后序节点列表
+     */
+    List<Expr> postorder() {
+        Deque<Expr> stack = new ArrayDeque<>();
+        List<Expr> out = new ArrayList<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {  // 按 根-右-左 收集后反转
+            Expr node = stack.pop();
+            out.add(node);
+            if (node instanceof Binary) {
+                stack.push(((Binary) node).getLeft());
+                stack.push(((Binary) node).getRight());
+            }
+        }
+        Collections.reverse(out);
+        return out;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.gdut;
+
+import java.util.Arrays;
+
+/**
+ * 原始类型 int -> int 哈希表：开放寻址、线性探测，键值存于两个 int 数组，
+ * 插入和查找不装箱、不为每个条目分配对象。
+ * 键不能为 Integer.MIN_VALUE（用作空槽标记）。
+ */
+public class IntIntMap {
+    private static final int EMPTY = Integer.MIN_VALUE;  // 空槽标记
+
+    private int[] keys;    // 键
+    private int[] values;  // 值
+    private int mask;      // 容量 - 1（容量为 2 的幂）
+    private int size;      // 条目数
+
+    /**
+     * 构造函数：按预期条目数预分配，装载因子不超过 0.5。
+     * @param expected 预期条目数
+     */
+    public IntIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 查找键对应的值。
+     * @param key 键
+     * @param missing 键不存在时的返回值
+     * @return 值或 missing
+     */
+    public int get(int key, int missing) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? missing : values[slot];
+    }
+
+    /**
+     * 键不存在时插入。
+     * @param key 键
+     * @param value 值
+     * @return true 如果插入成功；键已存在时返回 false，原值不变
+     */
+    public boolean putIfAbsent(int key, int value) {
+        int slot = find(key);
+        if (keys[slot] != EMPTY) return false;
+        insert(slot, key, value);
+        return true;
+    }
+
+    /**
+     * 累加键对应的值，键不存在时视为 0。
+     * @param key 键
+     * @param delta 增量
+     * @return 累加后的值
+     */
+    public int increment(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, delta);
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    /**
+     * 获取条目数。
+     * @return 条目数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按键升序返回所有键。
+     * @return 键数组
+     */
+    public int[] sortedKeys() {
+        int[] out = new int[size];
+        int k = 0;
+        for (int key : keys) {
+            if (key != EMPTY) out[k++] = key;
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    /**
+     * 私有方法：定位键所在槽或应插入的空槽。
+     * @param key 键
+     * @return 槽下标
+     */
+    private int find(int key) {
+        if (key == EMPTY) throw new IllegalArgumentException("不支持的键: " + key);
+        int h = key * 0x9E3779B9;  // 斐波那契散列，打散连续题号
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 私有方法：在空槽插入，超过装载因子时扩容。
+     * @param slot 空槽
+     * @param key 键
+     * @param value 值
+     */
+    private void insert(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) rehash();
+    }
+
+    /**
+     * 私有方法：容量翻倍并重新散列。
+     */
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * 私有方法：分配空表（保留 size）。
+     * @param capacity 容量，2 的幂
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.gdut;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 输出引擎：把题目按固定大小分成互不相交的块，各块（含 "N. " 编号前缀）并行格式化，
+ * 按块长度的前缀和算出各块在文件中的位置，再用 FileChannel 定位写并行写出。
+ * 输出与逐行顺序写出逐字节相同。
+ */
+public class OutputEngine {
+    static final int BLOCK_SIZE = 4096;  // 每块题数
+    private static final String NL = System.lineSeparator();  // 与 PrintWriter.println 一致
+
+    /**
+     * 写出一批题目和答案。
+     * @param problems 题目
+     * @param firstNo 第一题的编号
+     * @param exer 题目文件
+     * @param exerOffset 题目写入位置
+     * @param ans 答案文件
+     * @param ansOffset 答案写入位置
+     * @return {题目写出字节数, 答案写出字节数}
+     * @throws IOException 写入失败
+     */
+    public static long[] write(List<? extends Expr> problems, int firstNo, FileChannel exer, long exerOffset,
+                               FileChannel ans, long ansOffset) throws IOException {
+        return write(problems, firstNo, exer, exerOffset, ans, ansOffset, BLOCK_SIZE);
+    }
+
+    /**
+     * 写出一批题目和答案（指定块大小）。
+     * @param problems 题目
+     * @param firstNo 第一题的编号
+     * @param exer 题目文件
+     * @param exerOffset 题目写入位置
+     * @param ans 答案文件
+     * @param ansOffset 答案写入位置
+     * @param blockSize 每块题数
+     * @return {题目写出字节数, 答案写出字节数}
+     * @throws IOException 写入失败
+     */
+    static long[] write(List<? extends Expr> problems, int firstNo, FileChannel exer, long exerOffset,
+                        FileChannel ans, long ansOffset, int blockSize) throws IOException {
+        int blocks = (problems.size() + blockSize - 1) / blockSize;
+        byte[][] exerBlocks = new byte[blocks][];
+        byte[][] ansBlocks = new byte[blocks][];
+        IntStream.range(0, blocks).parallel().forEach(b -> {  // 并行格式化
+            int from = b * blockSize;
+            int to = Math.min(from + blockSize, problems.size());
+            StringBuilder exerText = new StringBuilder();
+            StringBuilder ansText = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                Expr e = problems.get(i);
+                int no = firstNo + i;
+                exerText.append(no).append(". ").append(e.toInfix()).append(" =").append(NL);  // 题目格式
+                ansText.append(no).append(". ").append(e.eval().toString()).append(NL);         // 答案格式
+            }
+            exerBlocks[b] = exerText.toString().getBytes(StandardCharsets.UTF_8);
+            ansBlocks[b] = ansText.toString().getBytes(StandardCharsets.UTF_8);
+        });
+
+        long[] exerPos = new long[blocks + 1];  // 前缀和：各块写入位置
+        long[] ansPos = new long[blocks + 1];
+        exerPos[0] = exerOffset;
+        ansPos[0] = ansOffset;
+        for (int b = 0; b < blocks; b++) {
+            exerPos[b + 1] = exerPos[b] + exerBlocks[b].length;
+            ansPos[b + 1] = ansPos[b] + ansBlocks[b].length;
+        }
+
+        try {
+            IntStream.range(0, blocks).parallel().forEach(b -> {  // 并行定位写
+                try {
+                    writeAt(exer, exerBlocks[b], exerPos[b]);
+                    writeAt(ans, ansBlocks[b], ansPos[b]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new long[]{exerPos[blocks] - exerOffset, ansPos[blocks] - ansOffset};
+    }
+
+    /**
+     * 私有方法：在指定位置完整写出字节（定位写不改变通道位置，可多线程并发）。
+     * @param ch 文件通道
+     * @param bytes 字节
+     * @param offset 位置
+     * @throws IOException 写入失败
+     */
+    private static void writeAt(FileChannel ch, byte[] bytes, long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            offset += ch.write(buf, offset);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.gdut;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 题目源：按需逐题提供不重复的有效题目。
+ * 题目预先生成到环形缓冲区，后台线程在缓冲区低于低水位时补充到满，
+ * 调用方取题时不需要等待拒绝采样。
+ */
+public class ProblemSource implements AutoCloseable {
+    private static final int MAX_ATTEMPTS = 1000000;  // 单线程连续失败上限，超过视为题目空间耗尽
+
+    private final List<Fraction> leaves;          // 叶子值列表
+    private final int maxOps;                     // 最大运算符数
+    private final ArrayBlockingQueue<Expr> buffer;  // 环形缓冲区
+    private final int lowWatermark;               // 低水位：低于此值唤醒补充线程
+    private final Set<String> issued = ConcurrentHashMap.newKeySet();  // 已生成题目的规范形式
+    private final ExecutorService refillers;      // 补充线程
+    private final Object refillLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();     // 缓冲区命中次数
+    private final AtomicLong misses = new AtomicLong();   // 缓冲区为空需等待的次数
+    private final AtomicLong lowSince = new AtomicLong(); // 降到低水位的时刻（纳秒），0 表示未低于水位
+    private final AtomicLong refills = new AtomicLong();  // 完成的补充次数
+    private final AtomicLong lastLag = new AtomicLong();  // 最近一次补充延迟（纳秒）
+    private final AtomicLong maxLag = new AtomicLong();   // 最大补充延迟（纳秒）
+    private volatile boolean exhausted;  // 题目空间已耗尽
+    private volatile boolean closed;
+
+    /**
+     * 内嵌静态类：运行指标快照。
+     */
+    public static class Metrics {
+        public final long hits;               // 命中次数
+        public final long misses;             // 未命中次数
+        public final int buffered;            // 当前缓冲题数
+        public final long refills;            // 补充次数
+        public final long lastRefillLagNanos; // 最近补充延迟：从降到低水位到补满
+        public final long maxRefillLagNanos;  // 最大补充延迟
+
+        /**
+         * 构造函数：创建快照。
+         * @param hits 命中次数
+         * @param misses 未命中次数
+         * @param buffered 当前缓冲题数
+         * @param refills 补充次数
+         * @param lastRefillLagNanos 最近补充延迟
+         * @param maxRefillLagNanos 最大补充延迟
+         */
+        Metrics(long hits, long misses, int buffered, long refills, long lastRefillLagNanos, long maxRefillLagNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.buffered = buffered;
+            this.refills = refills;
+            this.lastRefillLagNanos = lastRefillLagNanos;
+            this.maxRefillLagNanos = maxRefillLagNanos;
+        }
+
+        /**
+         * 指标的可读字符串。
+         * @return 字符串
+         */
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", buffered=" + buffered + ", refills=" + refills
+                    + ", lastRefillLag=" + lastRefillLagNanos / 1000 + "us, maxRefillLag=" + maxRefillLagNanos / 1000 + "us";
+        }
+    }
+
+    /**
+     * 构造函数：创建题目源并启动后台补充线程。
+     * @param range 数值范围（同 -r）
+     * @param maxOps 每题最多运算符数（同 -o）
+     * @param capacity 缓冲区容量
+     * @param lowWatermark 低水位
+     * @param threads 补充线程数
+     */
+    public ProblemSource(int range, int maxOps, int capacity, int lowWatermark, int threads) {
+        if (lowWatermark < 1 || lowWatermark > capacity) {
+            throw new IllegalArgumentException("低水位须在 1 到容量之间");
+        }
+        this.leaves = ArithmeticGenerator.buildLeaves(range);
+        this.maxOps = maxOps;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.lowWatermark = lowWatermark;
+        this.refillers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "problem-refill");
+            t.setDaemon(true);
+            return t;
+        });
+        lowSince.set(System.nanoTime());  // 初始为空，首次补满计入延迟
+        for (int i = 0; i < threads; i++) {
+            refillers.execute(this::refillLoop);
+        }
+    }
+
+    /**
+     * 取下一道题：缓冲区有题时立即返回，否则等待补充线程。
+     * @return 题目
+     * @throws InterruptedException 等待时被中断
+     * @throws NoSuchElementException 题目空间已耗尽且缓冲区为空
+     */
+    public Expr next() throws InterruptedException {
+        Expr e = buffer.poll();
+        if (e != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            while ((e = buffer.poll(10, TimeUnit.MILLISECONDS)) == null) {
+                if (exhausted && buffer.isEmpty()) throw new NoSuchElementException("题目空间已耗尽");
+                if (closed) throw new IllegalStateException("题目源已关闭");
+            }
+        }
+        if (buffer.size() < lowWatermark) {
+            lowSince.compareAndSet(0, System.nanoTime());
+            synchronized (refillLock) {
+                refillLock.notifyAll();  // 唤醒补充线程
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 获取运行指标快照。
+     * @return 指标
+     */
+    public Metrics metrics() {
+        return new Metrics(hits.get(), misses.get(), buffer.size(), refills.get(), lastLag.get(), maxLag.get());
+    }
+
+    /**
+     * 停止后台补充线程。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        refillers.shutdownNow();
+    }
+
+    /**
+     * 私有方法：补充线程主循环，缓冲区满后等待降到低水位。
+     */
+    private void refillLoop() {
+        Random rand = new Random();  // 每线程独立的随机数生成器
+        int failures = 0;
+        try {
+            while (!closed && !exhausted) {
+                if (buffer.remainingCapacity() == 0) {
+                    recordRefilled();
+                    synchronized (refillLock) {
+                        while (!closed && buffer.size() >= lowWatermark) refillLock.wait();
+                    }
+                    continue;
+                }
+                Expr expr = ArithmeticGenerator.generateExpr(maxOps, leaves, rand);
+                if (expr.isValid() && issued.add(expr.getCanonical())) {
+                    buffer.put(expr);
+                    failures = 0;
+                } else if (++failures >= MAX_ATTEMPTS) {
+                    exhausted = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // close() 时退出
+        }
+    }
+
+    /**
+     * 私有方法：缓冲区补满时记录补充延迟。
+     */
+    private void recordRefilled() {
+        long since = lowSince.getAndSet(0);
+        if (since == 0) return;
+        long lag = System.nanoTime() - since;
+        refills.incrementAndGet();
+        lastLag.set(lag);
+        maxLag.accumulateAndGet(lag, Math::max);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.gdut;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 堆外题目存储：每道题编码为直接 ByteBuffer 中的定长记录，
+ * 大量题目常驻内存排序、打乱或服务时，GC 看不到逐题的对象图。
+ *
+ * 运算符码 1~4 依次对应 ArithmeticGenerator.OPS 中的运算符。
+ * 记录布局（后缀序，token 数上限为 2 * maxOps + 1，叶子数上限为 maxOps + 1）：
+ * [token 数 int][填充 int][答案分子 long][答案分母 long][运算符码 byte * maxTokens，补齐到 8][叶子 (分子, 分母) long * 2 * maxLeaves]
+ * 叶子值按叶子在后缀序中的序号存放，运算符不占值区。
+ */
+public class ProblemStore {
+    private static final byte LEAF = 0;  // 叶子码
+
+    private static final int COUNT_OFFSET = 0;
+    private static final int ANS_NUM_OFFSET = 8;
+    private static final int ANS_DEN_OFFSET = 16;
+    private static final int CODES_OFFSET = 24;
+
+    private final int maxTokens;     // 每条记录最多 token 数
+    private final int maxLeaves;     // 每条记录最多叶子数
+    private final int valuesOffset;  // 叶子值区偏移
+    private final int recordSize;    // 记录字节数
+    private final byte[] scratchA;   // 交换用缓冲
+    private final byte[] scratchB;   // 交换用缓冲
+    private ByteBuffer buf;          // 记录区
+    private int size;                // 题目数
+
+    /**
+     * 构造函数：创建存储。
+     * @param maxOps 每题最多运算符数
+     * @param initialCapacity 初始容量（题数）
+     */
+    public ProblemStore(int maxOps, int initialCapacity) {
+        this.maxTokens = 2 * maxOps + 1;
+        this.valuesOffset = CODES_OFFSET + (maxTokens + 7) / 8 * 8;
+        this.maxLeaves = maxOps + 1;
+        this.recordSize = valuesOffset + maxLeaves * 16;
+        this.scratchA = new byte[recordSize];
+        this.scratchB = new byte[recordSize];
+        this.buf = ByteBuffer.allocateDirect(recordSize * Math.max(1, initialCapacity));
+    }
+
+    /**
+     * 追加一道题：按后缀序编码并缓存答案。
+     * @param expr 表达式
+     * @return 题目下标
+     */
+    public int add(Expr expr) {
+        List<Expr> postorder = expr.postorder();
+        if (postorder.size() > maxTokens) {
+            throw new IllegalArgumentException("运算符数超过存储上限: " + (postorder.size() - 1) / 2);
+        }
+        ensureCapacity(size + 1);
+        int base = size * recordSize;
+        buf.putInt(base + COUNT_OFFSET, postorder.size());
+        int leaf = 0;  // 叶子序号
+        for (int t = 0; t < postorder.size(); t++) {
+            Expr node = postorder.get(t);
+            if (node instanceof Binary) {
+                buf.put(base + CODES_OFFSET + t, opCode(((Binary) node).getOp()));
+            } else {
+                Fraction v = ((Leaf) node).getValue();
+                buf.put(base + CODES_OFFSET + t, LEAF);
+                buf.putLong(base + valuesOffset + leaf * 16, v.getNumerator());
+                buf.putLong(base + valuesOffset + leaf * 16 + 8, v.getDenominator());
+                leaf++;
+            }
+        }
+        Fraction ans = expr.eval();
+        buf.putLong(base + ANS_NUM_OFFSET, ans.getNumerator());
+        buf.putLong(base + ANS_DEN_OFFSET, ans.getDenominator());
+        return size++;
+    }
+
+    /**
+     * 解码第 i 道题为表达式树。
+     * @param i 下标
+     * @return 表达式树
+     */
+    public Expr get(int i) {
+        checkIndex(i);
+        int base = i * recordSize;
+        int count = buf.getInt(base + COUNT_OFFSET);
+        Deque<Expr> stack = new ArrayDeque<>();
+        int leaf = 0;  // 叶子序号
+        for (int t = 0; t < count; t++) {
+            byte code = buf.get(base + CODES_OFFSET + t);
+            if (code == LEAF) {
+                long num = buf.getLong(base + valuesOffset + leaf * 16);
+                long den = buf.getLong(base + valuesOffset + leaf * 16 + 8);
+                leaf++;
+                stack.push(new Leaf(new Fraction(num, den)));
+            } else {
+                Expr right = stack.pop();
+                Expr left = stack.pop();
+                stack.push(new Binary(ArithmeticGenerator.OPS[code - 1], left, right));
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * 获取第 i 道题的缓存答案。
+     * @param i 下标
+     * @return 答案
+     */
+    public Fraction answer(int i) {
+        checkIndex(i);
+        int base = i * recordSize;
+        return new Fraction(buf.getLong(base + ANS_NUM_OFFSET), buf.getLong(base + ANS_DEN_OFFSET));
+    }
+
+    /**
+     * 获取题目数。
+     * @return 题目数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取每条记录的字节数。
+     * @return 记录字节数
+     */
+    int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * 原地交换两道题的记录。
+     * @param i 下标
+     * @param j 下标
+     */
+    public void swap(int i, int j) {
+        if (i == j) return;
+        buf.get(i * recordSize, scratchA);
+        buf.get(j * recordSize, scratchB);
+        buf.put(i * recordSize, scratchB);
+        buf.put(j * recordSize, scratchA);
+    }
+
+    /**
+     * 原地打乱（Fisher-Yates）。
+     * @param rand 随机生成器
+     */
+    public void shuffle(Random rand) {
+        for (int i = size - 1; i > 0; i--) {
+            swap(i, rand.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * 按答案大小原地升序排序（堆排序，不分配额外记录空间）。
+     */
+    public void sortByAnswer() {
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    /**
+     * 私有方法：堆下沉。
+     * @param i 起点
+     * @param n 堆大小
+     */
+    private void siftDown(int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) return;
+            if (child + 1 < n && compareAnswers(child + 1, child) > 0) child++;
+            if (compareAnswers(i, child) >= 0) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /**
+     * 比较两道题的答案大小：交叉相乘取 128 位乘积比较，分子分母接近 long 上限时也不会溢出。
+     * @param i 下标
+     * @param j 下标
+     * @return 1、0 或 -1
+     */
+    public int compareAnswers(int i, int j) {
+        int bi = i * recordSize;
+        int bj = j * recordSize;
+        long a = buf.getLong(bi + ANS_NUM_OFFSET);
+        long b = buf.getLong(bi + ANS_DEN_OFFSET);
+        long c = buf.getLong(bj + ANS_NUM_OFFSET);
+        long d = buf.getLong(bj + ANS_DEN_OFFSET);
+        int high = Long.compare(Math.multiplyHigh(a, d), Math.multiplyHigh(c, b));  // 分母为正，比较 a*d 与 c*b
+        if (high != 0) return high;
+        return Integer.signum(Long.compareUnsigned(a * d, c * b));
+    }
+
+    /**
+     * 私有方法：容量不足时按倍数扩容（复制到新的直接缓冲区）。
+     * @param n 需要的题数
+     */
+    private void ensureCapacity(int n) {
+        long needed = (long) n * recordSize;
+        if (needed <= buf.capacity()) return;
+        long grown = Math.max(needed, (long) buf.capacity() * 2);
+        if (grown > Integer.MAX_VALUE) {
+            if (needed > Integer.MAX_VALUE) throw new IllegalStateException("超过单个缓冲区容量上限");
+            grown = Integer.MAX_VALUE / recordSize * recordSize;
+        }
+        ByteBuffer bigger = ByteBuffer.allocateDirect((int) grown);
+        buf.position(0).limit(size * recordSize);
+        bigger.put(buf);
+        buf.clear();
+        this.buf = bigger;
+    }
+
+    /**
+     * 私有方法：下标检查。
+     * @param i 下标
+     */
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("下标越界: " + i);
+    }
+
+    /**
+     * 私有静态方法：运算符转码。
+     * @param op 运算符
+     * @return 运算符码
+     */
+    private static byte opCode(String op) {
+        int k = ArithmeticGenerator.opIndex(op.charAt(0));
+        if (k < 0) throw new IllegalArgumentException("未知运算符: " + op);
+        return (byte) (k + 1);
+    }
+}
\ No newline at end of file
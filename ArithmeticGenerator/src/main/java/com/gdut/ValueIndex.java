@@ -0,0 +1,140 @@
+package com.gdut;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 值索引类：按运算符个数预计算可达子表达式的值及其构造方式，
+ * 用于按答案约束直接抽取题目，避免“先生成再拒绝”。
+ */
+public class ValueIndex {
+    private static final int ATTEMPTS_PER_PROBLEM = 20;  // 每层按目标题数的倍数尝试组合
+    private static final int MIN_LEVEL_BUDGET = 2000;    // 每层最少尝试组合次数（保证下一层有足够的子树）
+    private static final int MAX_LEVEL_BUDGET = 200000;  // 每层最多尝试组合次数
+    private static final int PER_VALUE_CAP = 32;         // 每个值最多保留的构造数
+
+    /**
+     * 内嵌静态类：索引条目，表达式及其值。
+     */
+    static class Entry {
+        final Expr expr;       // 表达式树
+        final Fraction value;  // 表达式值
+
+        /**
+         * 构造函数：创建条目。
+         * @param expr 表达式
+         * @param value 值
+         */
+        Entry(Expr expr, Fraction value) {
+            this.expr = expr;
+            this.value = value;
+        }
+    }
+
+    private final List<List<Entry>> levels = new ArrayList<>();                 // 第 k 层：恰好 k 个运算符的条目
+    private final List<Map<Fraction, List<Entry>>> byValue = new ArrayList<>();  // 第 k 层：值 -> 条目
+
+    /**
+     * 构造函数：逐层构建索引，第 k 层由第 i 层和第 k-1-i 层的条目组合而成。
+     * 每层尝试次数与目标题数成正比（有上下限），本层满足约束的条目达到目标题数即停止，
+     * 构建耗时和保留的表达式数不随 maxOps 成倍膨胀。
+     * @param leaves 叶子值列表
+     * @param maxOps 最大运算符数
+     * @param rand 随机生成器
+     * @param constraint 答案约束
+     * @param wanted 目标题数
+     */
+    public ValueIndex(List<Fraction> leaves, int maxOps, Random rand, Predicate<Fraction> constraint, int wanted) {
+        long scaled = (long) wanted * ATTEMPTS_PER_PROBLEM;
+        int budget = (int) Math.max(MIN_LEVEL_BUDGET, Math.min(MAX_LEVEL_BUDGET, scaled));
+        Set<String> seen = new HashSet<>();  // 规范形式去重
+        List<Entry> level0 = new ArrayList<>();
+        Map<Fraction, List<Entry>> values0 = new HashMap<>();
+        for (Fraction f : leaves) {
+            Leaf leaf = new Leaf(f);
+            if (seen.add(leaf.getCanonical())) {
+                addEntry(level0, values0, new Entry(leaf, f));
+            }
+        }
+        levels.add(level0);
+        byValue.add(values0);
+
+        for (int k = 1; k <= maxOps; k++) {
+            List<Entry> level = new ArrayList<>();
+            Map<Fraction, List<Entry>> values = new HashMap<>();
+            int matched = 0;  // 本层满足约束的条目数
+            for (int attempt = 0; attempt < budget && matched < wanted; attempt++) {
+                int leftOps = rand.nextInt(k);  // 随机分配左侧运算符数
+                List<Entry> lefts = levels.get(leftOps);
+                List<Entry> rights = levels.get(k - 1 - leftOps);
+                if (lefts.isEmpty() || rights.isEmpty()) continue;
+                Entry l = lefts.get(rand.nextInt(lefts.size()));
+                Entry r = rights.get(rand.nextInt(rights.size()));
+                String op = ArithmeticGenerator.OPS[rand.nextInt(ArithmeticGenerator.OPS.length)];
+                Fraction value;
+                try {
+                    if (!Binary.isValidStep(op, l.value, r.value)) continue;  // 子树已有效，只查本步
+                    value = Binary.apply(op, l.value, r.value);
+                } catch (ArithmeticException e) {
+                    continue;  // 分子分母超出 long 范围，与 Expr.isValid 一致视为无效
+                }
+                List<Entry> same = values.get(value);
+                if (same != null && same.size() >= PER_VALUE_CAP) continue;
+                Expr expr = new Binary(op, l.expr, r.expr);
+                if (seen.add(expr.getCanonical())) {
+                    addEntry(level, values, new Entry(expr, value));
+                    if (constraint.test(value)) matched++;
+                }
+            }
+            levels.add(level);
+            byValue.add(values);
+        }
+    }
+
+    /**
+     * 私有方法：加入条目到层列表和值表。
+     * @param level 层列表
+     * @param values 值表
+     * @param e 条目
+     */
+    private static void addEntry(List<Entry> level, Map<Fraction, List<Entry>> values, Entry e) {
+        level.add(e);
+        values.computeIfAbsent(e.value, v -> new ArrayList<>()).add(e);
+    }
+
+    /**
+     * 取出所有答案满足约束的表达式：约束按值判断，每个不同值只判断一次。
+     * @param constraint 答案约束
+     * @return 匹配的表达式列表（各层合并）
+     */
+    public List<Expr> matching(Predicate<Fraction> constraint) {
+        List<Expr> result = new ArrayList<>();
+        for (Map<Fraction, List<Entry>> values : byValue) {
+            for (Map.Entry<Fraction, List<Entry>> e : values.entrySet()) {
+                if (!constraint.test(e.getKey())) continue;
+                for (Entry entry : e.getValue()) {
+                    result.add(entry.expr);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取出恰好 ops 个运算符、答案满足约束的表达式。
+     * @param constraint 答案约束
+     * @param ops 运算符数
+     * @return 匹配的表达式列表（ops 超出已构建层数时为空）
+     */
+    public List<Expr> matching(Predicate<Fraction> constraint, int ops) {
+        List<Expr> result = new ArrayList<>();
+        if (ops < 0 || ops >= byValue.size()) return result;
+        for (Map.Entry<Fraction, List<Entry>> e : byValue.get(ops).entrySet()) {
+            if (!constraint.test(e.getKey())) continue;
+            for (Entry entry : e.getValue()) {
+                result.add(entry.expr);
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.gdut;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 监视批改类：基于 WatchService 监视答案目录，只批改新增或修改的文件，
+ * 并按每行哈希只重批改变化的行，批改延迟与变化量成正比而非与总量成正比。
+ */
+public class WatchGrader {
+    private final AnswerKey key;   // 常驻内存的答案键
+    private final Path exerPath;   // 题目文件（不参与批改）
+    private final Path outDir;     // 报告目录
+    private final Map<Path, FileState> states = new HashMap<>();  // 已批改文件的状态
+
+    /**
+     * 内嵌静态类：单个答案文件的批改状态。
+     */
+    static class FileState {
+        final long[] hashes;    // 每行哈希
+        final byte[] outcomes;  // 每行结果
+
+        /**
+         * 构造函数：创建状态。
+         * @param hashes 每行哈希
+         * @param outcomes 每行结果
+         */
+        FileState(long[] hashes, byte[] outcomes) {
+            this.hashes = hashes;
+            this.outcomes = outcomes;
+        }
+    }
+
+    /**
+     * 构造函数：创建监视批改器。
+     * @param key 答案键
+     * @param exerPath 题目文件
+     * @param outDir 报告目录
+     */
+    public WatchGrader(AnswerKey key, Path exerPath, Path outDir) {
+        this.key = key;
+        this.exerPath = exerPath.toAbsolutePath().normalize();
+        this.outDir = outDir;
+    }
+
+    /**
+     * 监视批改入口：先批改目录中已有文件，再持续处理变化，直到线程被中断。
+     * @param exerFile 题目文件
+     * @param dir 答案目录
+     * @param outDir 报告目录
+     * @throws IOException 读写失败
+     */
+    public static void run(String exerFile, String dir, Path outDir) throws IOException {
+        Path exer = Paths.get(exerFile);
+        WatchGrader grader = new WatchGrader(AnswerKey.load(exer), exer, outDir);
+        try {
+            grader.watch(Paths.get(dir));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 监视循环。
+     * @param dir 答案目录
+     * @throws IOException 读写失败
+     * @throws InterruptedException 线程被中断
+     */
+    void watch(Path dir) throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        try (WatchService ws = dir.getFileSystem().newWatchService()) {
+            dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            scan(dir);  // 注册后再扫描，避免漏掉期间的变化
+            System.out.println("监视 " + dir + " 中的答案文件，报告输出到 " + outDir);
+            while (true) {
+                WatchKey wk = ws.take();
+                for (WatchEvent<?> event : wk.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan(dir);  // 事件丢失时全量核对，未变化的行不会重批
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        remove(file);
+                    } else if (accepts(file)) {
+                        update(file);
+                    }
+                }
+                if (!wk.reset()) break;  // 目录已不可访问
+            }
+        }
+    }
+
+    /**
+     * 扫描目录中所有答案文件；已跟踪但不再存在的文件（事件丢失期间被删除）移除其状态和报告。
+     * @param dir 答案目录
+     * @throws IOException 列目录失败
+     */
+    void scan(Path dir) throws IOException {
+        List<Path> files = BatchGrader.resolve(dir.toString(), exerPath);
+        Set<Path> present = new HashSet<>(files);
+        for (Path tracked : new ArrayList<>(states.keySet())) {
+            if (!present.contains(tracked)) remove(tracked);
+        }
+        for (Path file : files) {
+            update(file);
+        }
+    }
+
+    /**
+     * 私有方法：是否为需要批改的答案文件。
+     * @param file 文件
+     * @return true 如果需要批改
+     */
+    private boolean accepts(Path file) {
+        return Files.isRegularFile(file)
+                && !file.toAbsolutePath().normalize().equals(exerPath)
+                && !file.getFileName().toString().endsWith(".key");
+    }
+
+    /**
+     * 增量批改单个文件：哈希未变的行沿用旧结果，其余行重批；有变化时刷新报告。
+     * @param file 答案文件
+     * @return 重批改的行数；文件无法读取或解析时返回 -1
+     */
+    int update(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            System.err.println("错误：无法读取 " + file + "：" + e.getMessage());
+            return -1;
+        }
+        FileState old = states.get(file);
+        long[] hashes = new long[lines.size()];
+        byte[] outcomes = new byte[Math.min(key.size(), lines.size())];
+        int regraded = 0;
+        try {
+            for (int i = 0; i < lines.size(); i++) {
+                hashes[i] = hash(lines.get(i));
+                if (i >= outcomes.length) continue;
+                if (old != null && i < old.outcomes.length && old.hashes[i] == hashes[i]) {
+                    outcomes[i] = old.outcomes[i];  // 未变化的行
+                } else {
+                    outcomes[i] = (byte) key.check(i, lines.get(i));
+                    regraded++;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("错误：无法批改 " + file + "：" + e.getMessage());  // 可能仍在写入，等待下次修改
+            return -1;
+        }
+        states.put(file, new FileState(hashes, outcomes));
+        if (old != null && regraded == 0 && old.outcomes.length == outcomes.length) return 0;  // 无变化不重写报告
+        try {
+            ArithmeticGenerator.writeGrade(BatchGrader.reportPath(outDir, file), outcomes);
+        } catch (IOException e) {
+            System.err.println("错误：无法写入 " + file + " 的报告：" + e.getMessage());
+        }
+        return regraded;
+    }
+
+    /**
+     * 移除已删除文件的状态和报告。
+     * @param file 答案文件
+     */
+    void remove(Path file) {
+        if (states.remove(file) == null) return;
+        try {
+            Files.deleteIfExists(BatchGrader.reportPath(outDir, file));
+        } catch (IOException e) {
+            System.err.println("错误：无法删除 " + file + " 的报告：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 静态方法：行内容的 64 位 FNV-1a 哈希。
+     * @param line 行
+     * @return 哈希值
+     */
+    static long hash(String line) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
\ No newline at end of file
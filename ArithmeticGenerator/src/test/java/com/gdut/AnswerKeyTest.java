@@ -0,0 +1,77 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AnswerKey 测试：旁路缓存的写入、复用与失效。
+ */
+public class AnswerKeyTest {
+
+    /**
+     * 测试用例12：首次加载写出旁路文件，再次加载结果一致；题目改动后重新编译。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testSidecarReuseAndInvalidate(@TempDir Path tempDir) throws IOException {
+        Path exerPath = tempDir.resolve("exer.txt");
+        Files.writeString(exerPath, "1. 1 + 1 =\n2. 2 * 3 =\nbad line\n4. 1 + =");
+
+        AnswerKey first = AnswerKey.load(exerPath);
+        assertTrue(Files.exists(AnswerKey.sidecarPath(exerPath)), "应生成旁路文件");
+        AnswerKey second = AnswerKey.load(exerPath);
+        for (AnswerKey key : new AnswerKey[]{first, second}) {
+            assertEquals(4, key.size());
+            assertEquals(AnswerKey.CORRECT, key.check(0, "1. 2"));
+            assertEquals(AnswerKey.CORRECT, key.check(1, "2. 6"));
+            assertEquals(AnswerKey.SKIP, key.check(2, "3. 5"), "题目行格式错误不计分");
+            assertEquals(AnswerKey.WRONG, key.check(3, "4. 1"), "无法解析的题目计错");
+        }
+
+        Files.writeString(exerPath, "1. 1 + 2 =");
+        AnswerKey changed = AnswerKey.load(exerPath);
+        assertEquals(1, changed.size());
+        assertEquals(AnswerKey.CORRECT, changed.check(0, "1. 3"), "内容改变后应重新编译");
+    }
+
+    /**
+     * 测试用例22：按题号批改，有序归并与哈希连接结果一致，缺少与多余的答案分别报告。
+     */
+    @Test
+    void testJoinByNumber() {
+        AnswerKey key = AnswerKey.compile(List.of("1. 1 + 1 =", "2. 2 * 3 =", "3. 4 - 1 =", "bad line", "5. 2 + 2 ="));
+
+        AnswerKey.Join sorted = key.join(List.of("1. 2", "3. 4", "5. 4", "7. 1"));  // 缺 2，多 7
+        AnswerKey.Join shuffled = key.join(List.of("5. 4", "7. 1", "note", "3. 4", "1. 2", "1. 2"));  // 乱序，1 重复
+        for (AnswerKey.Join join : new AnswerKey.Join[]{sorted, shuffled}) {
+            assertArrayEquals(new byte[]{AnswerKey.CORRECT, AnswerKey.MISSING, AnswerKey.WRONG, AnswerKey.SKIP,
+                    AnswerKey.CORRECT}, join.outcomes);
+        }
+        assertArrayEquals(new int[]{7}, Arrays.copyOf(sorted.unexpected, sorted.unexpectedCount));
+        assertArrayEquals(new int[]{7, 1}, Arrays.copyOf(shuffled.unexpected, shuffled.unexpectedCount));
+        assertEquals(5, key.number(4));
+        assertEquals(AnswerKey.NO_NUMBER, key.number(3));
+    }
+
+    /**
+     * 测试用例32：空答案和无法解析的答案计错，不影响其他行，按题号批改也不中断。
+     */
+    @Test
+    void testUnparsableAnswerIsWrong() {
+        AnswerKey key = AnswerKey.compile(List.of("1. 1 + 1 =", "2. 2 * 3 =", "3. 4 - 1 ="));
+        assertEquals(AnswerKey.WRONG, key.check(0, "1. "), "空答案应计错");
+        assertEquals(AnswerKey.WRONG, key.check(1, "2. abc"), "非数字答案应计错");
+        assertEquals(AnswerKey.WRONG, key.check(2, "3. 1'"), "残缺的带分数应计错");
+        assertArrayEquals(new byte[]{AnswerKey.WRONG, AnswerKey.CORRECT, AnswerKey.WRONG},
+                key.grade(List.of("1. ", "2. 6", "3. x/y")));
+        assertArrayEquals(new byte[]{AnswerKey.CORRECT, AnswerKey.WRONG, AnswerKey.CORRECT},
+                key.join(List.of("1. 2", "2. ", "3. 3")).outcomes);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BankStats 单元测试：流式统计文件与统计生成中的表达式结果一致。
+ */
+public class BankStatsTest {
+
+    /**
+     * 测试用例24：手写题目与答案的各项计数。
+     */
+    @Test
+    void testCountsSmallBank() {
+        BankStats stats = new BankStats();
+        stats.acceptExercise("1. 1 + 2 * 3 =");
+        stats.acceptExercise("2. (1 + 2) * 3 =");
+        stats.acceptExercise("3. 1/2 - 1/3 =");
+        stats.acceptExercise("4. (1 + =");
+        for (String line : new String[]{"1. 7", "2. 9", "3. 1/6", "4. 2'1/6", "5. 7"}) stats.acceptAnswer(line);
+
+        assertEquals(3, stats.exercises);
+        assertEquals(1, stats.unparsed);
+        assertArrayEquals(new long[]{2, 1, 2, 0}, stats.ops);
+        assertEquals(1, stats.shapes.get(0b1_00011, 0), "1 + 2 * 3：(n (n n))");
+        assertEquals(1, stats.shapes.get(0b1_00101, 0), "(1 + 2) * 3：((n n) n)");
+        assertEquals("((n n) n)", BankStats.shapeLabel(0b1_00101));
+        assertEquals(5, stats.answers);
+        assertEquals(1, stats.magnitudes[1]);  // 1/6
+        assertEquals(4, stats.magnitudes[2]);  // 7、9、2'1/6、7
+        assertEquals(3, stats.denominators[1]);
+        assertEquals(2, stats.denominators[6]);
+        assertEquals(4, stats.distinctAnswers());
+    }
+
+    /**
+     * 测试用例25：并行流式统计输出文件与生成时逐题统计一致，不同答案数估计误差在 3% 以内。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testFilesMatchInFlight(@TempDir Path tempDir) throws IOException {
+        List<Fraction> leaves = ArithmeticGenerator.buildLeaves(10);
+        Random rand = new Random(11);
+        List<Expr> problems = new ArrayList<>();
+        Set<Fraction> values = new HashSet<>();
+        while (problems.size() < 20000) {
+            Expr e = ArithmeticGenerator.generateExpr(3, leaves, rand);
+            if (!e.isValid()) continue;
+            problems.add(e);
+            values.add(e.eval());
+        }
+        Path exerPath = tempDir.resolve("Exercises.txt");
+        Path ansPath = tempDir.resolve("Answers.txt");
+        try (FileChannel exer = FileChannel.open(exerPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileChannel ans = FileChannel.open(ansPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            OutputEngine.write(problems, 1, exer, 0, ans, 0);
+        }
+
+        BankStats fromFiles = BankStats.ofFiles(exerPath, ansPath);
+        BankStats inFlight = problems.parallelStream().collect(BankStats::new, BankStats::accept, BankStats::merge);
+        assertEquals(0, fromFiles.unparsed);
+        assertEquals(inFlight.exercises, fromFiles.exercises);
+        assertEquals(inFlight.answers, fromFiles.answers);
+        assertArrayEquals(inFlight.ops, fromFiles.ops);
+        assertArrayEquals(inFlight.magnitudes, fromFiles.magnitudes);
+        assertArrayEquals(inFlight.denominators, fromFiles.denominators);
+        assertArrayEquals(inFlight.shapes.sortedKeys(), fromFiles.shapes.sortedKeys());
+        for (int key : inFlight.shapes.sortedKeys()) {
+            assertEquals(inFlight.shapes.get(key, 0), fromFiles.shapes.get(key, 0));
+        }
+        assertEquals(inFlight.distinctAnswers(), fromFiles.distinctAnswers());
+        assertEquals(values.size(), fromFiles.distinctAnswers(), values.size() * 0.03);
+
+        Path report = tempDir.resolve(BankStats.REPORT_FILE);
+        fromFiles.write(report);
+        assertTrue(Files.readAllLines(report).contains("Exercises: 20000"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchGrader 测试：目录批改的单份报告与汇总错误率。
+ */
+public class BatchGraderTest {
+
+    /**
+     * 测试用例13：两份答案并发批改，汇总每题错误率。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testBatchReportsAndSummary(@TempDir Path tempDir) throws IOException {
+        Path exerPath = tempDir.resolve("exer.txt");
+        Files.writeString(exerPath, "1. 1 + 1 =\n2. 1 + 2 =");
+        Path subDir = Files.createDirectory(tempDir.resolve("subs"));
+        Files.writeString(subDir.resolve("a.txt"), "1. 2\n2. 3");
+        Files.writeString(subDir.resolve("b.txt"), "1. 2\n2. 4");
+        Path outDir = tempDir.resolve("out");
+
+        BatchGrader.run(exerPath.toString(), subDir.toString(), outDir);
+
+        List<String> a = Files.readAllLines(BatchGrader.reportPath(outDir, subDir.resolve("a.txt")));
+        assertEquals("Correct: 2 (1, 2)", a.get(0));
+        List<String> b = Files.readAllLines(BatchGrader.reportPath(outDir, subDir.resolve("b.txt")));
+        assertEquals("Wrong: 1 (2)", b.get(1));
+        List<String> summary = Files.readAllLines(outDir.resolve(BatchGrader.SUMMARY_FILE));
+        assertEquals("Submissions: 2", summary.get(0));
+        assertTrue(summary.contains("1. Wrong: 0/2 (0.0%)"), "第1题全对");
+        assertTrue(summary.contains("2. Wrong: 1/2 (50.0%)"), "第2题错一半");
+    }
+
+    /**
+     * 测试用例14：通配符只匹配指定文件。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testResolveGlob(@TempDir Path tempDir) throws IOException {
+        Files.writeString(tempDir.resolve("s1.txt"), "");
+        Files.writeString(tempDir.resolve("s2.txt"), "");
+        Files.writeString(tempDir.resolve("notes.md"), "");
+        List<Path> files = BatchGrader.resolve(tempDir.resolve("*.txt").toString(), tempDir.resolve("exer.txt"));
+        assertEquals(List.of(tempDir.resolve("s1.txt"), tempDir.resolve("s2.txt")), files);
+    }
+}
\ No newline at end of file
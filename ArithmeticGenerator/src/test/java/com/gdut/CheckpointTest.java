@@ -0,0 +1,63 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkpoint 单元测试：中断后恢复的输出与不中断运行一致。
+ */
+public class CheckpointTest {
+
+    /**
+     * 测试用例20：中途停止（并在检查点之后写入残留内容）后恢复，输出逐字节一致，完成后删除检查点。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testResumeMatchesUninterrupted(@TempDir Path tempDir) throws IOException {
+        Path full = Files.createDirectory(tempDir.resolve("full"));
+        Path resumed = Files.createDirectory(tempDir.resolve("resumed"));
+        assertTrue(ArithmeticGenerator.generate(new Checkpoint(500, 10, 3, new Random(42)), full, 64));
+
+        // 模拟第3次检查点后中断
+        assertFalse(ArithmeticGenerator.generate(new Checkpoint(500, 10, 3, new Random(42)), resumed, 64, null, 3));
+        Path ckFile = resumed.resolve(Checkpoint.FILE);
+        assertTrue(Files.exists(ckFile), "停止后应保留检查点");
+        Files.writeString(resumed.resolve("Exercises.txt"), "999. 残留 =\n", StandardOpenOption.APPEND);  // 模拟检查点之后的半截写入
+
+        Checkpoint state = Checkpoint.load(ckFile);
+        assertEquals(192, state.count);
+        assertEquals(192, state.uniqueCanonicals.size());
+        assertTrue(ArithmeticGenerator.generate(state, resumed, 64));
+
+        assertArrayEquals(Files.readAllBytes(full.resolve("Exercises.txt")), Files.readAllBytes(resumed.resolve("Exercises.txt")));
+        assertArrayEquals(Files.readAllBytes(full.resolve("Answers.txt")), Files.readAllBytes(resumed.resolve("Answers.txt")));
+        assertEquals(500, Files.readAllLines(resumed.resolve("Answers.txt")).size());
+        assertFalse(Files.exists(ckFile), "完成后应删除检查点");
+        assertFalse(Files.exists(Checkpoint.indexPath(ckFile)));
+    }
+
+    /**
+     * 测试用例30：尝试次数以 long 保存和读回，超过 int 范围不截断；尝试上限随题数增长。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testAttemptsBeyondIntRange(@TempDir Path tempDir) throws IOException {
+        Path ckFile = tempDir.resolve(Checkpoint.FILE);
+        Checkpoint state = new Checkpoint(50000000, 10, 3, new Random(42));
+        state.attempts = 3000000000L;
+        state.save(ckFile);
+        Files.createFile(Checkpoint.indexPath(ckFile));
+        assertEquals(3000000000L, Checkpoint.load(ckFile).attempts);
+
+        assertEquals(ArithmeticGenerator.MIN_ATTEMPTS, ArithmeticGenerator.maxAttempts(10));
+        assertEquals(5000000000L, ArithmeticGenerator.maxAttempts(50000000), "五千万题的尝试上限应超过 int 范围");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IntIntMap 单元测试：与 HashMap 对照。
+ */
+public class IntIntMapTest {
+
+    /**
+     * 测试用例23：扩容后插入与查找结果与 HashMap 一致。
+     */
+    @Test
+    void testMatchesHashMap() {
+        IntIntMap map = new IntIntMap(1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rand = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int key = rand.nextInt(5000) - 2500;
+            assertEquals(expected.putIfAbsent(key, i) == null, map.putIfAbsent(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -2600; key < 2600; key++) {
+            assertEquals((int) expected.getOrDefault(key, -99999), map.get(key, -99999));
+        }
+    }
+
+    /**
+     * 测试用例26：累加与按键升序取键（BankStats 的树形计数与合并）与 HashMap 一致。
+     */
+    @Test
+    void testIncrementAndSortedKeys() {
+        IntIntMap map = new IntIntMap(1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rand = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            int key = rand.nextInt(5000) - 2500;
+            int delta = rand.nextInt(3) + 1;
+            assertEquals((int) expected.merge(key, delta, Integer::sum), map.increment(key, delta));
+        }
+        int[] keys = map.sortedKeys();
+        assertEquals(expected.size(), keys.length);
+        for (int k = 1; k < keys.length; k++) assertTrue(keys[k - 1] < keys[k], "键应严格升序");
+        for (int key : keys) assertEquals((int) expected.get(key), map.get(key, 0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OutputEngine 单元测试：分块并行定位写与顺序写出逐字节一致。
+ */
+public class OutputEngineTest {
+
+    /**
+     * 测试用例21：多块、非零起始位置和编号，输出与 PrintWriter 逐行写出相同。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testMatchesSequentialOutput(@TempDir Path tempDir) throws IOException {
+        List<Fraction> leaves = ArithmeticGenerator.buildLeaves(10);
+        Random rand = new Random(7);
+        List<Expr> problems = new ArrayList<>();
+        while (problems.size() < 1000) {
+            Expr e = ArithmeticGenerator.generateExpr(3, leaves, rand);
+            if (e.isValid()) problems.add(e);  // 只取有效题目，避免除零与种子相关
+        }
+
+        StringWriter exerExpected = new StringWriter();
+        StringWriter ansExpected = new StringWriter();
+        try (PrintWriter exerWriter = new PrintWriter(exerExpected); PrintWriter ansWriter = new PrintWriter(ansExpected)) {
+            exerWriter.print("header\n");
+            ansWriter.print("header\n");
+            for (int i = 0; i < problems.size(); i++) {
+                exerWriter.println((i + 51) + ". " + problems.get(i).toInfix() + " =");
+                ansWriter.println((i + 51) + ". " + problems.get(i).eval().toString());
+            }
+        }
+
+        Path exerPath = tempDir.resolve("Exercises.txt");
+        Path ansPath = tempDir.resolve("Answers.txt");
+        Files.writeString(exerPath, "header\n");
+        Files.writeString(ansPath, "header\n");
+        long[] written;
+        try (FileChannel exer = FileChannel.open(exerPath, StandardOpenOption.WRITE);
+             FileChannel ans = FileChannel.open(ansPath, StandardOpenOption.WRITE)) {
+            written = OutputEngine.write(problems, 51, exer, 7, ans, 7, 37);  // 37 题一块，共 28 块
+        }
+
+        byte[] exerBytes = exerExpected.toString().getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(exerBytes, Files.readAllBytes(exerPath));
+        assertArrayEquals(ansExpected.toString().getBytes(StandardCharsets.UTF_8), Files.readAllBytes(ansPath));
+        assertEquals(exerBytes.length - 7, written[0]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProblemSource 测试：取题唯一有效，题目空间耗尽时报错。
+ */
+public class ProblemSourceTest {
+
+    /**
+     * 测试用例17：连续取题超过缓冲区容量，题目均有效且不重复。
+     * @throws InterruptedException 中断
+     */
+    @Test
+    void testNextUniqueAndValid() throws InterruptedException {
+        try (ProblemSource source = new ProblemSource(10, 3, 64, 16, 2)) {
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < 300; i++) {
+                Expr e = source.next();
+                assertTrue(e.isValid(), "题目应有效");
+                assertTrue(seen.add(e.getCanonical()), "题目不应重复");
+            }
+            ProblemSource.Metrics m = source.metrics();
+            assertEquals(300, m.hits + m.misses);
+        }
+    }
+
+    /**
+     * 测试用例18：r=1 时题目空间有限，取尽后抛出 NoSuchElementException。
+     */
+    @Test
+    void testExhausted() {
+        try (ProblemSource source = new ProblemSource(1, 3, 8, 4, 1)) {
+            assertThrows(NoSuchElementException.class, () -> {
+                for (int i = 0; i < 1000; i++) source.next();
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProblemStore 测试：编码往返、按答案排序、打乱。
+ */
+public class ProblemStoreTest {
+
+    /**
+     * 测试用例16：存入后按答案排序，解码结果与原表达式一致；打乱不丢题。
+     */
+    @Test
+    void testSortAndRoundTrip() {
+        Expr big = new Binary("*", new Leaf(new Fraction(3, 1)),
+                new Binary("+", new Leaf(new Fraction(1, 2)), new Leaf(new Fraction(2, 1))));  // 7'1/2
+        Expr small = new Leaf(new Fraction(1, 3));                                           // 1/3
+        Expr mid = new Binary("-", new Leaf(new Fraction(5, 1)), new Leaf(new Fraction(3, 4)));  // 4'1/4
+
+        ProblemStore store = new ProblemStore(3, 1);  // 从1条容量开始，覆盖扩容
+        store.add(big);
+        store.add(small);
+        store.add(mid);
+        assertEquals(3, store.size());
+
+        store.sortByAnswer();
+        assertEquals(small.toInfix(), store.get(0).toInfix());
+        assertEquals(mid.toInfix(), store.get(1).toInfix());
+        assertEquals(big.toInfix(), store.get(2).toInfix());
+        assertEquals(new Fraction(15, 2), store.answer(2));
+
+        store.shuffle(new Random(7));
+        store.sortByAnswer();
+        assertEquals("3 * (1/2 + 2)", store.get(2).toInfix(), "打乱后再排序应恢复");
+    }
+
+    /**
+     * 测试用例33：值区按叶子数分配（3 个运算符的记录为 96 字节），满运算符的题按叶子序号存取往返一致。
+     */
+    @Test
+    void testCompactLeafSlots() {
+        ProblemStore store = new ProblemStore(3, 2);
+        assertEquals(24 + 8 + 4 * 16, store.recordSize(), "值区只为 maxOps + 1 个叶子预留");
+        Expr full = new Binary("-",
+                new Binary("+", new Leaf(new Fraction(1, 2)), new Leaf(new Fraction(2, 3))),
+                new Binary("/", new Leaf(new Fraction(5, 1)), new Leaf(new Fraction(7, 4))));  // 4 个叶子
+        Expr chain = new Binary("*", new Binary("*", new Binary("*", new Leaf(new Fraction(2, 1)),
+                new Leaf(new Fraction(3, 1))), new Leaf(new Fraction(5, 1))), new Leaf(new Fraction(7, 9)));
+        store.add(full);
+        store.add(chain);
+        assertEquals(full.toInfix(), store.get(0).toInfix());
+        assertEquals(chain.toInfix(), store.get(1).toInfix());
+        assertEquals(chain.eval(), store.answer(1));
+    }
+
+    /**
+     * 测试用例28：交叉乘积超出 long 范围时比较结果仍正确。
+     */
+    @Test
+    void testCompareAnswersNearLongMax() {
+        long m = Long.MAX_VALUE;
+        ProblemStore store = new ProblemStore(0, 4);
+        store.add(new Leaf(new Fraction(m, m - 1)));      // 1 + 1/(m-1)
+        store.add(new Leaf(new Fraction(m - 1, m - 2)));  // 1 + 1/(m-2)，更大
+        store.add(new Leaf(new Fraction(m, 1)));
+        store.add(new Leaf(new Fraction(1, m)));          // m*m 按 64 位回绕后与 1*1 相等
+        assertEquals(-1, store.compareAnswers(0, 1));
+        assertEquals(1, store.compareAnswers(1, 0));
+        assertEquals(0, store.compareAnswers(1, 1));
+        assertEquals(1, store.compareAnswers(2, 3));
+        assertEquals(-1, store.compareAnswers(3, 2));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ValueIndex 测试：按答案约束抽取的题目均有效且满足约束。
+ */
+public class ValueIndexTest {
+
+    /**
+     * 测试用例11：答案小于2且分母不超过4。
+     */
+    @Test
+    void testMatchingSatisfiesConstraint() {
+        Fraction upper = new Fraction(2, 1);
+        Predicate<Fraction> constraint = v -> v.compareTo(upper) < 0 && v.getDenominator() <= 4;
+        ValueIndex index = new ValueIndex(ArithmeticGenerator.buildLeaves(5), 3, new Random(42), constraint, 100);
+        List<Expr> matched = index.matching(constraint);
+        assertFalse(matched.isEmpty(), "应有满足约束的题目");
+        for (Expr e : matched) {
+            assertTrue(e.isValid(), "题目应有效: " + e.toInfix());
+            Fraction value = e.eval();
+            assertTrue(value.compareTo(upper) < 0, "答案应小于2: " + e.toInfix());
+            assertTrue(value.getDenominator() <= 4, "分母应不超过4: " + e.toInfix());
+        }
+    }
+
+    /**
+     * 测试用例29：大范围、深树的索引，中间结果超出 long 范围的组合被跳过而不是抛出异常。
+     */
+    @Test
+    void testDeepIndexSkipsOverflow() {
+        Predicate<Fraction> constraint = ArithmeticGenerator.answerConstraint(new Fraction(30, 1), 12);
+        ValueIndex index = new ValueIndex(ArithmeticGenerator.buildLeaves(30), 8, new Random(42), constraint, 10);
+        List<Expr> matched = index.matching(constraint);
+        assertFalse(matched.isEmpty(), "应有满足约束的题目");
+        for (Expr e : matched) {
+            assertTrue(e.isValid(), "题目应有效: " + e.toInfix());
+            assertTrue(e.eval().getDenominator() <= 12, "分母应不超过12: " + e.toInfix());
+        }
+    }
+
+    /**
+     * 测试用例31：按运算符数抽取，小题库不被不含运算符的单个数占满，各运算符数都出现。
+     */
+    @Test
+    void testPickMixesOperatorCounts() {
+        Predicate<Fraction> constraint = ArithmeticGenerator.answerConstraint(new Fraction(10, 1), -1);
+        Random rand = new Random(42);
+        ValueIndex index = new ValueIndex(ArithmeticGenerator.buildLeaves(10), 3, rand, constraint, 300);
+        List<Expr> problems = ArithmeticGenerator.pickIndexed(index, 300, 0, 3, constraint, rand);
+        assertEquals(300, problems.size());
+        int[] byOps = new int[4];
+        for (Expr e : problems) {
+            byOps[(e.postorder().size() - 1) / 2]++;
+            assertTrue(constraint.test(e.eval()), "答案应满足约束: " + e.toInfix());
+        }
+        assertEquals(0, byOps[0], "不应抽到不含运算符的题目");
+        for (int k = 1; k <= 3; k++) {
+            assertTrue(byOps[k] >= 50, k + " 个运算符的题目应约占三分之一: " + byOps[k]);
+        }
+    }
+}
\ No newline at end of file
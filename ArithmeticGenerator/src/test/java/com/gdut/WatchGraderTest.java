@@ -0,0 +1,65 @@
+package com.gdut;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WatchGrader 测试：修改后只重批改变化的行。
+ */
+public class WatchGraderTest {
+
+    /**
+     * 测试用例15：首次批改全部行，修改一行后只重批该行并刷新报告。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testIncrementalUpdate(@TempDir Path tempDir) throws IOException {
+        Path exerPath = tempDir.resolve("exer.txt");
+        Files.writeString(exerPath, "1. 1 + 1 =\n2. 1 + 2 =\n3. 2 * 3 =");
+        Path outDir = Files.createDirectory(tempDir.resolve("out"));
+        Path ans = tempDir.resolve("ans.txt");
+        Files.writeString(ans, "1. 2\n2. 4\n3. 6");
+
+        WatchGrader grader = new WatchGrader(AnswerKey.load(exerPath), exerPath, outDir);
+        assertEquals(3, grader.update(ans), "首次批改全部行");
+        assertEquals(0, grader.update(ans), "未修改不重批");
+
+        Files.writeString(ans, "1. 2\n2. 3\n3. 6");
+        assertEquals(1, grader.update(ans), "只重批第2行");
+        List<String> report = Files.readAllLines(BatchGrader.reportPath(outDir, ans));
+        assertEquals("Correct: 3 (1, 2, 3)", report.get(0));
+        assertEquals("Wrong: 0 ()", report.get(1));
+    }
+
+    /**
+     * 测试用例27：事件丢失期间删除的文件在重新扫描时移除状态和报告。
+     * @param tempDir 临时目录
+     * @throws IOException IO异常
+     */
+    @Test
+    void testRescanDropsDeletedFiles(@TempDir Path tempDir) throws IOException {
+        Path exerPath = tempDir.resolve("exer.txt");
+        Files.writeString(exerPath, "1. 1 + 1 =");
+        Path outDir = Files.createDirectory(tempDir.resolve("out"));
+        Path ansDir = Files.createDirectory(tempDir.resolve("answers"));
+        Path kept = ansDir.resolve("a.txt");
+        Path deleted = ansDir.resolve("b.txt");
+        Files.writeString(kept, "1. 2");
+        Files.writeString(deleted, "1. 3");
+
+        WatchGrader grader = new WatchGrader(AnswerKey.load(exerPath), exerPath, outDir);
+        grader.scan(ansDir);
+        assertTrue(Files.exists(BatchGrader.reportPath(outDir, deleted)));
+
+        Files.delete(deleted);
+        grader.scan(ansDir);
+        assertFalse(Files.exists(BatchGrader.reportPath(outDir, deleted)), "已删除文件的报告应移除");
+        assertTrue(Files.exists(BatchGrader.reportPath(outDir, kept)));
+    }
+}
\ No newline at end of file